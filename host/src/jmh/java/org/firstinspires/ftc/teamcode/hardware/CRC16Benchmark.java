@@ -0,0 +1,55 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares the table-driven computeCRC16 with the bit-at-a-time loop it replaced, over a maximum-length frame
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CRC16Benchmark {
+    private final byte[] frame = ReplayClient.randomFrame(
+        new Random(0),
+        SRSHub.MAX_UPDATE_LENGTH
+    );
+
+    @Benchmark
+    public int table() {
+        return SRSHub.computeCRC16(
+            frame,
+            0,
+            frame.length - 2
+        );
+    }
+
+    @Benchmark
+    public int bitwise() {
+        int crc = 0x0000;
+
+        for (int i = 0; i < frame.length - 2; i++) {
+            crc ^= (frame[i] & 0xFF) << 8;
+
+            for (int j = 0; j < 8; j++) {
+                if ((crc & 0x8000) != 0) {
+                    crc = (crc << 1) ^ 0x1021;
+                }
+                else {
+                    crc <<= 1;
+                }
+
+                crc &= 0xFFFF;
+            }
+        }
+
+        return crc & 0xFFFF;
+    }
+}
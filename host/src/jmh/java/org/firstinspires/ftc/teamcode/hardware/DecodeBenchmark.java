@@ -0,0 +1,74 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * times each I2C device's parseUpdate on its own, reading from a random frame
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+    @Param({"APDS9151", "VL53L5CX 4x4", "VL53L5CX 8x8", "VL53L0X", "GoBildaPinpoint"})
+    public String device;
+
+    private final SRSHub.BitReader reader = new SRSHub.BitReader(SRSHub.MAX_UPDATE_LENGTH);
+
+    private SRSHub.I2CDevice i2cDevice;
+
+    @Setup
+    public void setup() {
+        byte[] frame = ReplayClient.randomFrame(
+            new Random(0),
+            SRSHub.MAX_UPDATE_LENGTH
+        );
+
+        reader.load(
+            frame,
+            frame.length
+        );
+
+        switch (device) {
+            case "APDS9151":
+                i2cDevice = new SRSHub.APDS9151();
+
+                break;
+            case "VL53L5CX 4x4":
+                i2cDevice = new SRSHub.VL53L5CX(SRSHub.VL53L5CX.Resolution.GRID_4x4);
+
+                break;
+            case "VL53L5CX 8x8":
+                i2cDevice = new SRSHub.VL53L5CX(SRSHub.VL53L5CX.Resolution.GRID_8x8);
+
+                break;
+            case "VL53L0X":
+                i2cDevice = new SRSHub.VL53L0X();
+
+                break;
+            default:
+                i2cDevice = HubBenchmark.pinpoint();
+
+                break;
+        }
+    }
+
+    @Benchmark
+    public SRSHub.I2CDevice parseUpdate() {
+        i2cDevice.parseUpdate(
+            reader,
+            8
+        );
+
+        return i2cDevice;
+    }
+}
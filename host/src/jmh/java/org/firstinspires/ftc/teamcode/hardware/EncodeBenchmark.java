@@ -0,0 +1,36 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * times encoding the INIT bitstream, which happens once per init
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+    private final SRSHub hub = new SRSHub(
+        new ReplayClient(),
+        true
+    );
+
+    private final SRSHub.Config typicalConfig = HubBenchmark.typicalConfig();
+    private final SRSHub.Config maxConfig = HubBenchmark.maxConfig();
+
+    @Benchmark
+    public byte[] encodeTypicalConfig() {
+        return hub.encodeConfig(typicalConfig);
+    }
+
+    @Benchmark
+    public byte[] encodeMaxConfig() {
+        return hub.encodeConfig(maxConfig);
+    }
+}
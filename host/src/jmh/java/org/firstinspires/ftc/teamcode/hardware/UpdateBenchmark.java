@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * times update, which reads, checks and decodes one frame, for the same configurations as {@link HubBenchmark}; the frames come from a
+ * {@link ReplayClient}, so the timings exclude I2C latency
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class UpdateBenchmark {
+    @Param({"small", "typical", "100-byte"})
+    public String config;
+
+    private SRSHub hub;
+
+    @Setup
+    public void setup() {
+        hub = new SRSHub(
+            new ReplayClient(),
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        switch (config) {
+            case "small":
+                hub.init(HubBenchmark.smallConfig());
+
+                break;
+            case "typical":
+                hub.init(HubBenchmark.typicalConfig());
+
+                break;
+            default:
+                hub.init(HubBenchmark.maxConfig());
+
+                break;
+        }
+    }
+
+    @Benchmark
+    public SRSHub.UpdateResult update() {
+        return hub.update();
+    }
+}
@@ -0,0 +1,19 @@
+package com.acmerobotics.dashboard;
+
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+public class FtcDashboard {
+    private static final FtcDashboard INSTANCE = new FtcDashboard();
+
+    private final Telemetry telemetry = new MultipleTelemetry();
+
+    public static FtcDashboard getInstance() {
+        return INSTANCE;
+    }
+
+    public Telemetry getTelemetry() {
+        return telemetry;
+    }
+}
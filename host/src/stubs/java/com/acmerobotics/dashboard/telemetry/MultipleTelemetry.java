@@ -0,0 +1,53 @@
+package com.acmerobotics.dashboard.telemetry;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class MultipleTelemetry implements Telemetry {
+    private final List<Telemetry> telemetries;
+
+    public MultipleTelemetry(Telemetry... telemetries) {
+        this.telemetries = Arrays.asList(telemetries);
+    }
+
+    public Item addData(String caption, String format, Object... args) {
+        for (Telemetry telemetry : telemetries) {
+            telemetry.addData(
+                caption,
+                format,
+                args
+            );
+        }
+
+        return null;
+    }
+
+    public Item addData(String caption, Object value) {
+        for (Telemetry telemetry : telemetries) {
+            telemetry.addData(
+                caption,
+                value
+            );
+        }
+
+        return null;
+    }
+
+    public Line addLine(String lineCaption) {
+        for (Telemetry telemetry : telemetries) {
+            telemetry.addLine(lineCaption);
+        }
+
+        return null;
+    }
+
+    public boolean update() {
+        for (Telemetry telemetry : telemetries) {
+            telemetry.update();
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package com.qualcomm.hardware.lynx;
+
+import com.qualcomm.robotcore.hardware.I2cDeviceSynchSimple;
+
+public interface LynxI2cDeviceSynch extends I2cDeviceSynchSimple {
+    enum BusSpeed {
+        STANDARD_100K,
+        FAST_400K,
+        FASTPLUS_1M,
+        HIGH_3_4M
+    }
+
+    void setBusSpeed(BusSpeed speed);
+}
@@ -0,0 +1,27 @@
+package com.qualcomm.robotcore.eventloop.opmode;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+public abstract class LinearOpMode {
+    public Telemetry telemetry;
+    public HardwareMap hardwareMap = new HardwareMap();
+
+    public abstract void runOpMode() throws InterruptedException;
+
+    public void waitForStart() {
+    }
+
+    public boolean opModeIsActive() {
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    public boolean isStopRequested() {
+        return Thread.currentThread().isInterrupted();
+    }
+
+    public void idle() {
+        Thread.yield();
+    }
+}
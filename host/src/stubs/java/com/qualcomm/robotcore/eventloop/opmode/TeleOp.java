@@ -0,0 +1,16 @@
+package com.qualcomm.robotcore.eventloop.opmode;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TeleOp {
+    String name() default "";
+
+    String group() default "";
+}
@@ -0,0 +1,21 @@
+package com.qualcomm.robotcore.hardware;
+
+public interface HardwareDevice {
+    enum Manufacturer {
+        Unknown,
+        Other,
+        Lynx
+    }
+
+    Manufacturer getManufacturer();
+
+    String getDeviceName();
+
+    String getConnectionInfo();
+
+    int getVersion();
+
+    void resetDeviceConfigurationForOpMode();
+
+    void close();
+}
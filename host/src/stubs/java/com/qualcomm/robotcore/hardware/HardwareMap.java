@@ -0,0 +1,28 @@
+package com.qualcomm.robotcore.hardware;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class HardwareMap {
+    private final Map<String, Object> devices = new HashMap<>();
+
+    public void put(String deviceName, Object device) {
+        devices.put(
+            deviceName,
+            device
+        );
+    }
+
+    public <T> T get(Class<? extends T> classOrInterface, String deviceName) {
+        Object device = devices.get(deviceName);
+
+        if (!classOrInterface.isInstance(device)) {
+            throw new IllegalArgumentException(
+                "Unable to find a hardware device with name \"" + deviceName + "\" " +
+                    "and type " + classOrInterface.getSimpleName()
+            );
+        }
+
+        return classOrInterface.cast(device);
+    }
+}
@@ -0,0 +1,25 @@
+package com.qualcomm.robotcore.hardware;
+
+public class I2cAddr {
+    private final int address7Bit;
+
+    public I2cAddr(int address7Bit) {
+        this.address7Bit = address7Bit & 0x7F;
+    }
+
+    public static I2cAddr create7bit(int address7Bit) {
+        return new I2cAddr(address7Bit);
+    }
+
+    public static I2cAddr create8bit(int address8Bit) {
+        return new I2cAddr(address8Bit >> 1);
+    }
+
+    public int get7Bit() {
+        return address7Bit;
+    }
+
+    public int get8Bit() {
+        return address7Bit << 1;
+    }
+}
@@ -0,0 +1,7 @@
+package com.qualcomm.robotcore.hardware;
+
+public interface I2cAddrConfig {
+    void setI2cAddress(I2cAddr newAddress);
+
+    I2cAddr getI2cAddress();
+}
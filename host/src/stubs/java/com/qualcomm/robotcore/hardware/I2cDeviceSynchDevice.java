@@ -0,0 +1,38 @@
+package com.qualcomm.robotcore.hardware;
+
+public abstract class I2cDeviceSynchDevice<DEVICE_CLIENT extends I2cDeviceSynchSimple> implements HardwareDevice {
+    protected DEVICE_CLIENT deviceClient;
+    protected boolean deviceClientIsOwned;
+    protected boolean isInitialized = false;
+
+    protected I2cDeviceSynchDevice(DEVICE_CLIENT deviceClient, boolean deviceClientIsOwned) {
+        this.deviceClient = deviceClient;
+        this.deviceClientIsOwned = deviceClientIsOwned;
+    }
+
+    protected void registerArmingStateCallback(boolean doInitialize) {
+    }
+
+    protected abstract boolean doInitialize();
+
+    public DEVICE_CLIENT getDeviceClient() {
+        return deviceClient;
+    }
+
+    public String getConnectionInfo() {
+        return deviceClient.getConnectionInfo();
+    }
+
+    public int getVersion() {
+        return 1;
+    }
+
+    public void resetDeviceConfigurationForOpMode() {
+    }
+
+    public void close() {
+        if (deviceClientIsOwned) {
+            deviceClient.close();
+        }
+    }
+}
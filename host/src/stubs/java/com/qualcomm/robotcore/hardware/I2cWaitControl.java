@@ -0,0 +1,7 @@
+package com.qualcomm.robotcore.hardware;
+
+public enum I2cWaitControl {
+    NONE,
+    ATOMIC,
+    WRITTEN
+}
@@ -0,0 +1,7 @@
+package com.qualcomm.robotcore.hardware;
+
+public interface RobotConfigNameable {
+    void setUserConfiguredName(String name);
+
+    String getUserConfiguredName();
+}
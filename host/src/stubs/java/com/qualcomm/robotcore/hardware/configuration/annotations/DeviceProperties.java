@@ -0,0 +1,18 @@
+package com.qualcomm.robotcore.hardware.configuration.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DeviceProperties {
+    String xmlTag();
+
+    String name();
+
+    String description() default "";
+}
@@ -0,0 +1,26 @@
+package com.qualcomm.robotcore.util;
+
+public class RobotLog {
+    private static volatile String globalErrorMessage = "";
+    private static volatile String globalWarningMessage = "";
+
+    public static void addGlobalWarningMessage(String message) {
+        globalWarningMessage = globalWarningMessage.isEmpty() ? message : globalWarningMessage + "; " + message;
+    }
+
+    public static void setGlobalErrorMsg(String message) {
+        globalErrorMessage = message;
+    }
+
+    public static void clearGlobalWarningMsg() {
+        globalWarningMessage = "";
+    }
+
+    public static String getGlobalErrorMsg() {
+        return globalErrorMessage;
+    }
+
+    public static String getGlobalWarningMessage() {
+        return globalWarningMessage;
+    }
+}
@@ -0,0 +1,17 @@
+package org.firstinspires.ftc.robotcore.external;
+
+public interface Telemetry {
+    interface Item {
+    }
+
+    interface Line {
+    }
+
+    Item addData(String caption, String format, Object... args);
+
+    Item addData(String caption, Object value);
+
+    Line addLine(String lineCaption);
+
+    boolean update();
+}
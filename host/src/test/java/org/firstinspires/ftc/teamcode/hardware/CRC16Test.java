@@ -0,0 +1,97 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class CRC16Test {
+    /**
+     * the bit-at-a-time CRC16-CCITT the table-driven computeCRC16 replaced
+     */
+    static int bitwiseCRC16(byte[] data, int offset, int length) {
+        int crc = 0x0000;
+
+        for (int i = offset; i < offset + length; i++) {
+            crc ^= (data[i] & 0xFF) << 8;
+
+            for (int j = 0; j < 8; j++) {
+                if ((crc & 0x8000) != 0) {
+                    crc = (crc << 1) ^ 0x1021;
+                }
+                else {
+                    crc <<= 1;
+                }
+
+                crc &= 0xFFFF;
+            }
+        }
+
+        return crc & 0xFFFF;
+    }
+
+    @Test
+    public void matchesBitwiseCRCOnRandomFrames() {
+        Random random = new Random(0);
+
+        for (int i = 0; i < 100000; i++) {
+            byte[] frame = new byte[1 + random.nextInt(SRSHub.MAX_UPDATE_LENGTH)];
+
+            random.nextBytes(frame);
+
+            int offset = random.nextInt(frame.length);
+            int length = random.nextInt(frame.length - offset + 1);
+
+            assertEquals(
+                bitwiseCRC16(
+                    frame,
+                    offset,
+                    length
+                ),
+                SRSHub.computeCRC16(
+                    frame,
+                    offset,
+                    length
+                ),
+                "offset " + offset + ", length " + length
+            );
+        }
+    }
+
+    @Test
+    public void matchesBitwiseCRCOnEverySingleByte() {
+        for (int value = 0; value < 256; value++) {
+            byte[] data = new byte[]{(byte) value};
+
+            assertEquals(
+                bitwiseCRC16(
+                    data,
+                    0,
+                    1
+                ),
+                SRSHub.computeCRC16(
+                    data,
+                    0,
+                    1
+                )
+            );
+        }
+    }
+
+    @Test
+    public void matchesCCITTCheckValue() {
+        // CRC-16/XMODEM, which is CRC16-CCITT with an initial value of 0, of the standard "123456789" check string
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(
+            0x31C3,
+            SRSHub.computeCRC16(
+                data,
+                0,
+                data.length
+            )
+        );
+    }
+}
@@ -0,0 +1,174 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandTest {
+    private static SRSHub initializedHub(SRSHubSimulator simulator) {
+        SRSHub hub = new SRSHub(
+            simulator,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        SRSHub.Config config = new SRSHub.Config();
+
+        config.addI2CDevice(
+            1,
+            new SRSHub.GoBildaPinpoint(
+                0,
+                0,
+                19.89f,
+                SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD,
+                SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD
+            )
+        );
+
+        hub.init(
+            config,
+            false
+        );
+
+        return hub;
+    }
+
+    @Test
+    public void buffersReplaceOnlyTheSameCommandID() {
+        SRSHub.CommandBuffer first = new SRSHub.CommandBuffer(10).writeHeader(
+            2,
+            3,
+            0
+        );
+
+        SRSHub.CommandBuffer second = new SRSHub.CommandBuffer(10).writeHeader(
+            2,
+            3,
+            5
+        );
+
+        SRSHub.CommandBuffer repeat = new SRSHub.CommandBuffer(10).writeHeader(
+            2,
+            3,
+            5
+        );
+
+        SRSHub.CommandBuffer otherDevice = new SRSHub.CommandBuffer(10).writeHeader(
+            2,
+            4,
+            5
+        );
+
+        assertFalse(second.replaces(
+            first,
+            first.toBytes()
+        ));
+
+        assertTrue(repeat.replaces(
+            second,
+            second.toBytes()
+        ));
+
+        assertFalse(otherDevice.replaces(
+            second,
+            second.toBytes()
+        ));
+
+        assertTrue(second.replaces(
+            second,
+            second.toBytes()
+        ));
+
+        SRSHubSimulator simulator = new SRSHubSimulator();
+        SRSHub hub = initializedHub(simulator);
+
+        hub.queueCommand(first);
+        hub.queueCommand(second);
+        hub.queueCommand(repeat);
+
+        long commands = simulator.getCommandCount();
+
+        hub.update();
+
+        assertEquals(
+            2,
+            simulator.getCommandCount() - commands
+        );
+    }
+
+    @Test
+    public void sendsTheCommandAsItWasQueued() {
+        SRSHubSimulator simulator = new SRSHubSimulator();
+        SRSHub hub = initializedHub(simulator);
+
+        SRSHub.GoBildaPinpoint.SetPositionCommand command = new SRSHub.GoBildaPinpoint.SetPositionCommand(
+            1,
+            1,
+            2,
+            3
+        );
+
+        byte[] queued = command.toBytes().clone();
+
+        hub.queueCommand(command);
+
+        // rewriting the command after queueing it, without queueing it again, leaves what is sent alone
+        command.set(
+            4,
+            5,
+            6
+        );
+
+        hub.update();
+
+        assertArrayEquals(
+            queued,
+            simulator.getLastCommand()
+        );
+
+        hub.queueCommand(command);
+
+        hub.update();
+
+        assertArrayEquals(
+            command.toBytes(),
+            simulator.getLastCommand()
+        );
+    }
+
+    @Test
+    public void replacesByThePayloadAsItWasQueued() {
+        SRSHubSimulator simulator = new SRSHubSimulator();
+        SRSHub hub = initializedHub(simulator);
+
+        SRSHub.CommandBuffer command = new SRSHub.CommandBuffer(10).writeHeader(
+            2,
+            3,
+            0
+        );
+
+        hub.queueCommand(command);
+
+        // the queued copy still holds command ID 0, so queueing the buffer as command ID 5 adds a second command rather than replacing it
+        command.seek(0).writeHeader(
+            2,
+            3,
+            5
+        );
+
+        hub.queueCommand(command);
+
+        long commands = simulator.getCommandCount();
+
+        hub.update();
+
+        assertEquals(
+            2,
+            simulator.getCommandCount() - commands
+        );
+    }
+}
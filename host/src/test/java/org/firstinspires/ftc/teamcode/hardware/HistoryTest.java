@@ -0,0 +1,377 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class HistoryTest {
+    /**
+     * @return a Pinpoint update whose x position is the given value, packed least significant bit first after the disconnected flag and
+     *     the device status
+     */
+    private static byte[] pinpointPayload(float x) {
+        return pinpointPayload(
+            x,
+            0
+        );
+    }
+
+    /**
+     * @return a Pinpoint update with the given x position and heading, the heading following the x and y positions
+     */
+    private static byte[] pinpointPayload(float x, float heading) {
+        byte[] payload = new byte[25];
+
+        writeFloat(
+            payload,
+            9,
+            x
+        );
+
+        writeFloat(
+            payload,
+            73,
+            heading
+        );
+
+        return payload;
+    }
+
+    private static void writeFloat(byte[] payload, int offset, float value) {
+        int bits = Float.floatToIntBits(value);
+
+        for (int i = 0; i < 32; i++) {
+            int bit = offset + i;
+
+            if ((bits >>> i & 1) == 1) {
+                payload[bit >>> 3] |= (byte) (1 << (bit & 7));
+            }
+        }
+    }
+
+    @Test
+    public void interpolatesEncodersAndStaysConsistentAcrossThreads() throws InterruptedException {
+        SRSHubSimulator simulator = new SRSHubSimulator();
+        SRSHub hub = new SRSHub(
+            simulator,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        SRSHub.Config config = new SRSHub.Config();
+
+        config.setEncoder(
+            1,
+            SRSHub.Encoder.QUADRATURE
+        );
+
+        config.setHistoryCapacity(8);
+
+        hub.init(
+            config,
+            false
+        );
+
+        simulator.setLatency(
+            500,
+            0,
+            0
+        );
+
+        final SRSHub.History history = hub.getHistory();
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // the positions run from 0 to 1900, so every lookup must land in that range however it interleaves with update
+        Thread reader = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (history.size() == 0) {
+                        continue;
+                    }
+
+                    long newest = history.getNewestTimestamp();
+                    long oldest = history.getOldestTimestamp();
+
+                    assertTrue(oldest <= newest);
+
+                    double earlier = history.getEncoderAt(
+                        1,
+                        oldest + (newest - oldest) / 3
+                    );
+
+                    double later = history.getEncoderAt(
+                        1,
+                        oldest + (newest - oldest) * 2 / 3
+                    );
+
+                    assertTrue(earlier >= 0 && earlier <= 1900);
+                    assertTrue(later >= 0 && later <= 1900);
+                }
+            }
+            catch (Throwable throwable) {
+                failure.set(throwable);
+            }
+        });
+
+        reader.start();
+
+        long[] timestamps = new long[20];
+
+        for (int i = 0; i < timestamps.length; i++) {
+            simulator.setEncoder(
+                1,
+                i * 100,
+                0
+            );
+
+            hub.update();
+
+            timestamps[i] = hub.frameSampleTimestamp();
+        }
+
+        reader.interrupt();
+        reader.join();
+
+        assertNull(failure.get());
+
+        assertEquals(
+            8,
+            history.size()
+        );
+
+        assertEquals(
+            timestamps[12],
+            history.getOldestTimestamp()
+        );
+
+        assertEquals(
+            timestamps[19],
+            history.getNewestTimestamp()
+        );
+
+        assertEquals(
+            1400,
+            history.getEncoderAt(
+                1,
+                timestamps[14]
+            ),
+            1e-9
+        );
+
+        assertEquals(
+            1550,
+            history.getEncoderAt(
+                1,
+                timestamps[15] + (timestamps[16] - timestamps[15]) / 2
+            ),
+            1
+        );
+
+        assertEquals(
+            1200,
+            history.getEncoderAt(
+                1,
+                0
+            ),
+            1e-9
+        );
+
+        assertEquals(
+            1900,
+            history.getEncoderAt(
+                1,
+                Long.MAX_VALUE
+            ),
+            1e-9
+        );
+    }
+
+    @Test
+    public void interpolatesPinpointBetweenTheFramesItWasDecodedFrom() {
+        SRSHubSimulator simulator = new SRSHubSimulator();
+        SRSHub hub = new SRSHub(
+            simulator,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        SRSHub.Config config = new SRSHub.Config();
+
+        SRSHub.GoBildaPinpoint pinpoint = config.addI2CDevice(
+            1,
+            new SRSHub.GoBildaPinpoint(
+                0,
+                0,
+                19.89f,
+                SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD,
+                SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD
+            ),
+            3
+        );
+
+        config.setHistoryCapacity(32);
+
+        hub.init(
+            config,
+            false
+        );
+
+        simulator.setLatency(
+            500,
+            0,
+            0
+        );
+
+        int updates = 20;
+
+        long[] timestamps = new long[updates];
+        double[] positions = new double[updates];
+
+        // the sample time and position of each frame the Pinpoint was decoded from
+        long[] decodedTimestamps = new long[updates];
+        double[] decodedPositions = new double[updates];
+
+        int decoded = 0;
+
+        for (int i = 0; i < updates; i++) {
+            simulator.setI2CDevicePayload(
+                1,
+                1,
+                pinpointPayload((i + 1) * 10)
+            );
+
+            hub.update();
+
+            timestamps[i] = hub.frameSampleTimestamp();
+            positions[i] = pinpoint.xPosition;
+
+            if (positions[i] != (decoded == 0 ? 0 : decodedPositions[decoded - 1])) {
+                decodedTimestamps[decoded] = timestamps[i];
+                decodedPositions[decoded] = positions[i];
+
+                decoded++;
+            }
+        }
+
+        assertTrue(decoded > 2 && decoded < updates);
+
+        SRSHub.Pose pose = new SRSHub.Pose();
+
+        // every position differs, so each change marks a decode; lookups before the first are left out, since they interpolate from the frame
+        // read by init
+        for (int i = 0; i < updates; i++) {
+            if (timestamps[i] < decodedTimestamps[0]) {
+                continue;
+            }
+
+            int after = 0;
+
+            while (after < decoded && decodedTimestamps[after] <= timestamps[i]) {
+                after++;
+            }
+
+            double expected = positions[i];
+
+            if (after < decoded) {
+                long from = decodedTimestamps[after - 1];
+                long to = decodedTimestamps[after];
+
+                expected = decodedPositions[after - 1] + (decodedPositions[after] - decodedPositions[after - 1]) * (timestamps[i] - from) / (to - from);
+            }
+
+            assertEquals(
+                expected,
+                hub.getHistory().getPoseAt(
+                    timestamps[i],
+                    pose
+                ).x,
+                1e-6,
+                "update " + i
+            );
+        }
+    }
+
+    @Test
+    public void keepsInterpolatedHeadingsWithinPi() {
+        SRSHubSimulator simulator = new SRSHubSimulator();
+        SRSHub hub = new SRSHub(
+            simulator,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        SRSHub.Config config = new SRSHub.Config();
+
+        config.addI2CDevice(
+            1,
+            new SRSHub.GoBildaPinpoint(
+                0,
+                0,
+                19.89f,
+                SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD,
+                SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD
+            )
+        );
+
+        config.setHistoryCapacity(8);
+
+        hub.init(
+            config,
+            false
+        );
+
+        simulator.setLatency(
+            500,
+            0,
+            0
+        );
+
+        // the shortest turn from 3 to -3 radians crosses pi
+        simulator.setI2CDevicePayload(
+            1,
+            1,
+            pinpointPayload(
+                0,
+                3
+            )
+        );
+
+        hub.update();
+
+        long from = hub.frameSampleTimestamp();
+
+        simulator.setI2CDevicePayload(
+            1,
+            1,
+            pinpointPayload(
+                0,
+                -3
+            )
+        );
+
+        hub.update();
+
+        long to = hub.frameSampleTimestamp();
+
+        double heading = hub.getHistory().getPoseAt(
+            from + (to - from) * 3 / 4,
+            new SRSHub.Pose()
+        ).heading;
+
+        double expected = 3 + (2 * Math.PI - 6) * 0.75 - 2 * Math.PI;
+
+        assertEquals(
+            expected,
+            heading,
+            1e-3
+        );
+    }
+}
@@ -0,0 +1,685 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+
+/**
+ * drives SRSHub through SRSHubSimulator; the restart wait is shortened to 0, since the simulated SRSHub boots instantly unless a test sets
+ * a boot time
+ */
+public class SRSHubSimulatorTest {
+    private static SRSHub.Config quadratureConfig(int ports) {
+        SRSHub.Config config = new SRSHub.Config();
+
+        for (int port = 1; port <= ports; port++) {
+            config.setEncoder(
+                port,
+                SRSHub.Encoder.QUADRATURE
+            );
+        }
+
+        return config;
+    }
+
+    @Test
+    public void registerLessTransactionsFollowTheRegisterPointer() {
+        SRSHubSimulator simulator = new SRSHubSimulator();
+
+        simulator.write8(SRSHub.Register.DEVICE_INFO.address);
+
+        assertArrayEquals(
+            new byte[]{
+                SRSHub.DEVICE_ID,
+                SRSHub.DEVICE_MAJOR_VERSION,
+                SRSHub.DEVICE_MINOR_VERSION,
+                SRSHub.DEVICE_PATCH_VERSION
+            },
+            simulator.read(4)
+        );
+
+        simulator.write(
+            new byte[]{
+                SRSHub.Register.COMMAND.address,
+                1,
+                2
+            }
+        );
+
+        assertEquals(
+            1,
+            simulator.getCommandCount()
+        );
+
+        assertArrayEquals(
+            new byte[]{1, 2},
+            simulator.getLastCommand()
+        );
+
+        simulator.read(
+            SRSHub.Register.DEVICE_INFO.address,
+            4
+        );
+
+        assertEquals(
+            SRSHub.DEVICE_ID,
+            simulator.read8()
+        );
+    }
+
+    @Test
+    public void reconnectsAfterReset() throws InterruptedException {
+        for (boolean polling : new boolean[]{false, true}) {
+            SRSHubSimulator simulator = new SRSHubSimulator();
+            SRSHub hub = new SRSHub(
+                simulator,
+                true
+            );
+
+            hub.setRestartWait(0);
+
+            hub.init(
+                quadratureConfig(1),
+                false
+            );
+
+            simulator.setLatency(
+                1000,
+                0,
+                0
+            );
+
+            if (polling) {
+                hub.startPolling();
+            }
+
+            simulator.setEncoder(
+                1,
+                1000,
+                0
+            );
+
+            for (int i = 0; i < 20; i++) {
+                hub.update();
+
+                Thread.sleep(2);
+            }
+
+            // the 500 ticks moved while the SRSHub reboots are lost with its configuration
+            simulator.setBootTime(300);
+            hub.setRestartWait(300);
+            simulator.reset();
+
+            simulator.setEncoder(
+                1,
+                1500,
+                0
+            );
+
+            boolean disconnected = false;
+
+            long start = System.nanoTime();
+
+            while (System.nanoTime() - start < 5e9) {
+                hub.update();
+
+                disconnected |= hub.disconnected();
+
+                if (disconnected && !hub.disconnected()) {
+                    break;
+                }
+
+                Thread.sleep(2);
+            }
+
+            assertTrue(
+                disconnected,
+                "polling " + polling
+            );
+
+            assertFalse(
+                hub.disconnected(),
+                "polling " + polling
+            );
+
+            assertTrue(simulator.configured());
+
+            Thread.sleep(20);
+            hub.update();
+
+            simulator.setEncoder(
+                1,
+                1600,
+                0
+            );
+
+            Thread.sleep(20);
+            hub.update();
+
+            hub.stopPolling();
+
+            assertEquals(
+                1,
+                hub.getMetrics().getReconnects(),
+                "polling " + polling
+            );
+
+            // init's restart, the brown-out, and the restart that reconnecting sends before INIT
+            assertEquals(
+                3,
+                simulator.getRestartCount(),
+                "polling " + polling
+            );
+
+            assertEquals(
+                1100,
+                hub.readEncoderPosition(1),
+                "polling " + polling
+            );
+        }
+    }
+
+    @Test
+    public void warmStartsOnlyTheSRSHubHoldingTheConfiguration() {
+        SRSHubSimulator first = new SRSHubSimulator();
+        SRSHubSimulator second = new SRSHubSimulator();
+
+        // both configurations read frames of the same length, so only the recorded configuration tells them apart
+        SRSHub.Config secondConfig = new SRSHub.Config();
+
+        secondConfig.setEncoder(
+            2,
+            SRSHub.Encoder.QUADRATURE
+        );
+
+        SRSHub hub = new SRSHub(
+            second,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        hub.init(
+            secondConfig,
+            false
+        );
+
+        hub = new SRSHub(
+            first,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        hub.init(
+            quadratureConfig(1),
+            false
+        );
+
+        hub = new SRSHub(
+            first,
+            true
+        );
+
+        hub.init(quadratureConfig(1));
+
+        assertTrue(hub.getInitTimings().warmStart);
+
+        hub = new SRSHub(
+            second,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        hub.init(quadratureConfig(1));
+
+        assertFalse(hub.getInitTimings().warmStart);
+
+        assertEquals(
+            2,
+            second.getRestartCount()
+        );
+    }
+
+    @Test
+    public void ridesOutBusGlitchesWithoutRestarting() {
+        final int[] droppedReads = {0};
+
+        // drops READ transactions while DEVICE_INFO still answers, as a glitching bus can
+        SRSHubSimulator simulator = new SRSHubSimulator() {
+            @Override
+            public byte[] read(int ireg, int creg) {
+                if (ireg == SRSHub.Register.READ.address && droppedReads[0] > 0) {
+                    droppedReads[0]--;
+
+                    return new byte[creg];
+                }
+
+                return super.read(
+                    ireg,
+                    creg
+                );
+            }
+        };
+
+        SRSHub hub = new SRSHub(
+            simulator,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        hub.init(
+            quadratureConfig(1),
+            false
+        );
+
+        simulator.setEncoder(
+            1,
+            1000,
+            0
+        );
+
+        hub.update();
+
+        droppedReads[0] = 3;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(
+                SRSHub.UpdateResult.DISCONNECTED,
+                hub.update()
+            );
+        }
+
+        simulator.setEncoder(
+            1,
+            1200,
+            0
+        );
+
+        assertEquals(
+            SRSHub.UpdateResult.FRESH,
+            hub.update()
+        );
+
+        assertEquals(
+            1,
+            simulator.getRestartCount()
+        );
+
+        assertEquals(
+            0,
+            hub.getMetrics().getReconnects()
+        );
+
+        assertEquals(
+            1200,
+            hub.readEncoderPosition(1)
+        );
+    }
+
+    @Test
+    public void retriesFramesThatFailTheirCRC() {
+        SRSHubSimulator simulator = new SRSHubSimulator();
+        SRSHub hub = new SRSHub(
+            simulator,
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        hub.init(
+            quadratureConfig(1),
+            false
+        );
+
+        simulator.setCorruptionProbability(1);
+
+        hub.setCrcRetryPolicy(
+            3,
+            1000000
+        );
+
+        long reads = simulator.getReadCount();
+
+        assertEquals(
+            SRSHub.UpdateResult.STALE,
+            hub.update()
+        );
+
+        assertEquals(
+            4,
+            simulator.getReadCount() - reads
+        );
+
+        assertEquals(
+            3,
+            hub.getMetrics().getCrcRetries()
+        );
+
+        hub.setCrcRetryPolicy(
+            0,
+            1000000
+        );
+
+        reads = simulator.getReadCount();
+
+        assertEquals(
+            SRSHub.UpdateResult.STALE,
+            hub.update()
+        );
+
+        assertEquals(
+            1,
+            simulator.getReadCount() - reads
+        );
+
+        simulator.setCorruptionProbability(0.5);
+
+        hub.setCrcRetryPolicy(
+            30,
+            1000000
+        );
+
+        EnumMap<SRSHub.UpdateResult, Integer> results = new EnumMap<>(SRSHub.UpdateResult.class);
+
+        for (int i = 0; i < 200; i++) {
+            results.merge(
+                hub.update(),
+                1,
+                Integer::sum
+            );
+        }
+
+        assertTrue(results.containsKey(SRSHub.UpdateResult.FRESH));
+        assertTrue(results.containsKey(SRSHub.UpdateResult.RETRIED));
+        assertFalse(results.containsKey(SRSHub.UpdateResult.STALE));
+
+        simulator.setCorruptionProbability(0);
+
+        assertEquals(
+            SRSHub.UpdateResult.FRESH,
+            hub.update()
+        );
+
+        simulator.setConnected(false);
+
+        assertEquals(
+            SRSHub.UpdateResult.DISCONNECTED,
+            hub.update()
+        );
+    }
+
+    @Test
+    public void unwrapsQuadratureDeltasBeyond16Bits() throws InterruptedException {
+        // at 200,000 ticks per second, reading every 200 ms moves about 40,000 ticks per read, which does not fit in the 16-bit delta; a
+        // reversed encoder counts down and reports a negative velocity
+        for (int velocity : new int[]{200000, -200000}) {
+            SRSHubSimulator simulator = new SRSHubSimulator();
+            SRSHub hub = new SRSHub(
+                simulator,
+                true
+            );
+
+            hub.setRestartWait(0);
+
+            hub.init(
+                quadratureConfig(1),
+                false
+            );
+
+            // the motor is already at speed, so that the first delta is predicted from the same velocity as the rest
+            simulator.setEncoder(
+                1,
+                0,
+                velocity
+            );
+
+            hub.update();
+
+            long start = System.nanoTime();
+            long position = 0;
+
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(200);
+
+                position = (long) ((System.nanoTime() - start) / 1e9 * velocity);
+
+                simulator.setEncoder(
+                    1,
+                    (int) position,
+                    velocity
+                );
+
+                hub.update();
+            }
+
+            assertEquals(
+                position,
+                hub.readEncoderPosition(1),
+                "velocity " + velocity
+            );
+
+            assertTrue(
+                hub.getMetrics().getEncoderWraps() > 0,
+                "velocity " + velocity
+            );
+
+            assertEquals(
+                0,
+                hub.getMetrics().getAmbiguousEncoderDeltas(),
+                "velocity " + velocity
+            );
+        }
+    }
+
+    @Test
+    public void unwrapsQuadratureDeltasAfterAFrameFailsItsCRC() throws InterruptedException {
+        for (int retries : new int[]{0, 1}) {
+            SRSHubSimulator simulator = new SRSHubSimulator();
+            SRSHub hub = new SRSHub(
+                simulator,
+                true
+            );
+
+            hub.setRestartWait(0);
+
+            hub.init(
+                quadratureConfig(1),
+                false
+            );
+
+            hub.setCrcRetryPolicy(
+                retries,
+                1000000
+            );
+
+            int velocity = 200000;
+
+            simulator.setEncoder(
+                1,
+                0,
+                velocity
+            );
+
+            hub.update();
+
+            long start = System.nanoTime();
+            long position = 0;
+
+            // the delta sent in the corrupted frame is lost, but the deltas after it must still unwrap to what the SRSHub counted
+            long lost = 0;
+
+            for (int i = 0; i < 8; i++) {
+                Thread.sleep(200);
+
+                long previous = position;
+
+                position = (long) ((System.nanoTime() - start) / 1e9 * velocity);
+
+                simulator.setEncoder(
+                    1,
+                    (int) position,
+                    velocity
+                );
+
+                if (i == 3) {
+                    simulator.corruptNextReads(1);
+
+                    lost = position - previous;
+
+                    // a retry reads again right away, so its frame moves the encoder by nothing
+                    assertEquals(
+                        retries > 0 ? SRSHub.UpdateResult.RETRIED : SRSHub.UpdateResult.STALE,
+                        hub.update(),
+                        "retries " + retries
+                    );
+
+                    continue;
+                }
+
+                hub.update();
+            }
+
+            assertEquals(
+                position - lost,
+                hub.readEncoderPosition(1),
+                "retries " + retries
+            );
+
+            assertEquals(
+                0,
+                hub.getMetrics().getAmbiguousEncoderDeltas(),
+                "retries " + retries
+            );
+        }
+    }
+
+    @Test
+    public void deadWheelOdometryMatchesClosedFormPose() throws InterruptedException {
+        for (boolean polling : new boolean[]{false, true}) {
+            double distancePerTick = 0.05;
+            double trackWidth = 300;
+            double perpendicularOffset = -100;
+
+            SRSHub.Config config = quadratureConfig(3);
+
+            SRSHub.DeadWheelOdometry odometry = config.setDeadWheelOdometry(
+                new SRSHub.DeadWheelOdometry(
+                    1,
+                    2,
+                    3,
+                    distancePerTick,
+                    trackWidth,
+                    perpendicularOffset
+                ).setReversed(
+                    2,
+                    true
+                )
+            );
+
+            SRSHubSimulator simulator = new SRSHubSimulator();
+            SRSHub hub = new SRSHub(
+                simulator,
+                true
+            );
+
+            hub.setRestartWait(0);
+
+            hub.init(
+                config,
+                false
+            );
+
+            simulator.setLatency(
+                300,
+                0,
+                0
+            );
+
+            if (polling) {
+                hub.startPolling();
+            }
+
+            // a constant twist of 500 forward and 100 left per second while turning at 1.5 radians per second, for 2 seconds
+            double forward = 500;
+            double strafe = 100;
+            double turn = 1.5;
+            double duration = 2;
+
+            int steps = 2000;
+
+            double leftVelocity = forward - turn * trackWidth / 2;
+            double rightVelocity = forward + turn * trackWidth / 2;
+            double perpendicularVelocity = strafe + perpendicularOffset * turn;
+
+            for (int i = 1; i <= steps; i++) {
+                double time = duration * i / steps;
+
+                simulator.setEncoder(
+                    1,
+                    (int) Math.round(leftVelocity * time / distancePerTick),
+                    (int) (leftVelocity / distancePerTick)
+                );
+
+                simulator.setEncoder(
+                    2,
+                    -(int) Math.round(rightVelocity * time / distancePerTick),
+                    -(int) (rightVelocity / distancePerTick)
+                );
+
+                simulator.setEncoder(
+                    3,
+                    (int) Math.round(perpendicularVelocity * time / distancePerTick),
+                    (int) (perpendicularVelocity / distancePerTick)
+                );
+
+                if (polling) {
+                    Thread.sleep(
+                        0,
+                        300000
+                    );
+                }
+                else {
+                    hub.update();
+                }
+            }
+
+            Thread.sleep(20);
+            hub.update();
+
+            hub.stopPolling();
+
+            double heading = turn * duration;
+
+            SRSHub.Pose pose = odometry.getPose(new SRSHub.Pose());
+
+            assertEquals(
+                (forward * Math.sin(heading) - strafe * (1 - Math.cos(heading))) / turn,
+                pose.x,
+                0.5,
+                "polling " + polling
+            );
+
+            assertEquals(
+                (forward * (1 - Math.cos(heading)) + strafe * Math.sin(heading)) / turn,
+                pose.y,
+                0.5,
+                "polling " + polling
+            );
+
+            assertEquals(
+                heading,
+                pose.heading,
+                1e-3,
+                "polling " + polling
+            );
+        }
+    }
+}
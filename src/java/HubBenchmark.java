@@ -0,0 +1,264 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import java.util.Random;
+
+/**
+ * times the SRSHub driver's CPU-side work (CRC, INIT encoding, frame decoding) on the robot controller, without an SRSHub attached; update
+ * is driven by a {@link ReplayClient}, so its timings exclude I2C latency
+ */
+@TeleOp(name = "HubBenchmark")
+public class HubBenchmark extends LinearOpMode {
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int MEASURED_ITERATIONS = 100000;
+
+    private final Random random = new Random(0);
+
+    private long sink = 0;
+
+    public void runOpMode() throws InterruptedException {
+        telemetry.addLine("SRSHub benchmark ready");
+        telemetry.update();
+
+        waitForStart();
+
+        final byte[] frame = ReplayClient.randomFrame(
+            random,
+            SRSHub.MAX_UPDATE_LENGTH
+        );
+
+        report(
+            "computeCRC16 (98 bytes)",
+            () -> sink += SRSHub.computeCRC16(
+                frame,
+                0,
+                frame.length - 2
+            )
+        );
+
+        final SRSHub encoder = new SRSHub(
+            new ReplayClient(),
+            true
+        );
+
+        final SRSHub.Config typicalConfig = typicalConfig();
+        final SRSHub.Config maxConfig = maxConfig();
+
+        report(
+            "encodeConfig (typical)",
+            () -> sink += encoder.encodeConfig(typicalConfig).length
+        );
+
+        report(
+            "encodeConfig (100-byte)",
+            () -> sink += encoder.encodeConfig(maxConfig).length
+        );
+
+        final SRSHub.BitReader reader = new SRSHub.BitReader(SRSHub.MAX_UPDATE_LENGTH);
+
+        reader.load(
+            frame,
+            frame.length
+        );
+
+        reportParse(
+            "APDS9151.parseUpdate",
+            reader,
+            new SRSHub.APDS9151()
+        );
+
+        reportParse(
+            "VL53L5CX 4x4.parseUpdate",
+            reader,
+            new SRSHub.VL53L5CX(SRSHub.VL53L5CX.Resolution.GRID_4x4)
+        );
+
+        reportParse(
+            "VL53L5CX 8x8.parseUpdate",
+            reader,
+            new SRSHub.VL53L5CX(SRSHub.VL53L5CX.Resolution.GRID_8x8)
+        );
+
+        reportParse(
+            "VL53L0X.parseUpdate",
+            reader,
+            new SRSHub.VL53L0X()
+        );
+
+        reportParse(
+            "GoBildaPinpoint.parseUpdate",
+            reader,
+            pinpoint()
+        );
+
+        reportUpdate(
+            "update (small)",
+            smallConfig()
+        );
+
+        reportUpdate(
+            "update (typical)",
+            typicalConfig
+        );
+
+        reportUpdate(
+            "update (100-byte)",
+            maxConfig
+        );
+
+        telemetry.addLine("done");
+        telemetry.update();
+
+        while (opModeIsActive()) {
+            idle();
+        }
+    }
+
+    private void reportParse(String name, final SRSHub.BitReader reader, final SRSHub.I2CDevice device) {
+        report(
+            name,
+            () -> device.parseUpdate(
+                reader,
+                8
+            )
+        );
+    }
+
+    private void reportUpdate(String name, SRSHub.Config config) {
+        if (!opModeIsActive()) {
+            return;
+        }
+
+        final SRSHub hub = new SRSHub(
+            new ReplayClient(),
+            true
+        );
+
+        hub.setRestartWait(0);
+
+        hub.init(config);
+
+        report(
+            name,
+            hub::update
+        );
+    }
+
+    private void report(String name, Runnable operation) {
+        if (!opModeIsActive()) {
+            return;
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        double nanosPerOperation = (System.nanoTime() - start) / (double) MEASURED_ITERATIONS;
+
+        telemetry.addData(
+            name,
+            "%.0f ns/op",
+            nanosPerOperation
+        );
+
+        telemetry.update();
+    }
+
+    static SRSHub.GoBildaPinpoint pinpoint() {
+        return new SRSHub.GoBildaPinpoint(
+            -50,
+            -75,
+            19.89f,
+            SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD,
+            SRSHub.GoBildaPinpoint.EncoderDirection.FORWARD
+        );
+    }
+
+    static SRSHub.Config smallConfig() {
+        SRSHub.Config config = new SRSHub.Config();
+
+        config.setEncoder(
+            1,
+            SRSHub.Encoder.QUADRATURE
+        );
+
+        config.setEncoder(
+            2,
+            SRSHub.Encoder.QUADRATURE
+        );
+
+        return config;
+    }
+
+    static SRSHub.Config typicalConfig() {
+        SRSHub.Config config = new SRSHub.Config();
+
+        for (int pin = 1; pin <= 4; pin++) {
+            config.setAnalogDigitalDevice(
+                pin,
+                pin % 2 == 0 ? SRSHub.AnalogDigitalDevice.DIGITAL : SRSHub.AnalogDigitalDevice.ANALOG
+            );
+        }
+
+        config.setEncoder(
+            1,
+            SRSHub.Encoder.PWM
+        );
+
+        config.setEncoder(
+            2,
+            SRSHub.Encoder.QUADRATURE
+        );
+
+        config.addI2CDevice(
+            1,
+            pinpoint()
+        );
+
+        config.addI2CDevice(
+            2,
+            new SRSHub.APDS9151()
+        );
+
+        return config;
+    }
+
+    /**
+     * @return a configuration whose update frame is exactly the 100-byte bulk-read limit
+     */
+    static SRSHub.Config maxConfig() {
+        SRSHub.Config config = new SRSHub.Config();
+
+        config.setAnalogDigitalDevice(
+            1,
+            SRSHub.AnalogDigitalDevice.ANALOG
+        );
+
+        for (int pin = 2; pin <= 12; pin++) {
+            config.setAnalogDigitalDevice(
+                pin,
+                SRSHub.AnalogDigitalDevice.DIGITAL
+            );
+        }
+
+        config.setEncoder(
+            1,
+            SRSHub.Encoder.QUADRATURE
+        );
+
+        config.addI2CDevice(
+            1,
+            new SRSHub.VL53L5CX(SRSHub.VL53L5CX.Resolution.GRID_8x8)
+        );
+
+        return config;
+    }
+}
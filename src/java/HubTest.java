@@ -8,6 +8,8 @@ import com.qualcomm.robotcore.util.RobotLog;
 
 import org.firstinspires.ftc.teamcode.hardware.SRSHub;
 
+import java.util.concurrent.CompletableFuture;
+
 @TeleOp(name = "HubTest")
 public class HubTest extends LinearOpMode {
     public void runOpMode() throws InterruptedException {
@@ -19,17 +21,18 @@ public class HubTest extends LinearOpMode {
         // All ports default to NONE, buses default to empty
         SRSHub.Config config = new SRSHub.Config();
 
-        config.setEncoder(
+        // Handles read the hub's decoded values directly, without a lookup per loop
+        SRSHub.EncoderHandle encoder1 = config.setEncoder(
             1,
             SRSHub.Encoder.PWM
         );
 
-        config.setEncoder(
+        SRSHub.EncoderHandle encoder2 = config.setEncoder(
             2,
             SRSHub.Encoder.QUADRATURE
         );
 
-        config.addI2CDevice(
+        SRSHub.GoBildaPinpoint pinpoint = config.addI2CDevice(
             1,
             new SRSHub.GoBildaPinpoint(
                 -50,
@@ -47,9 +50,15 @@ public class HubTest extends LinearOpMode {
             "srshub"
         );
 
-        hub.init(config);
+        // The 2.5 s hub restart runs in the background, leaving this thread free for other init work
+        CompletableFuture<Void> hubInit = hub.initAsync(config);
+
+        while (!hubInit.isDone() && !isStopRequested()) {
+            idle();
+        }
 
-        while (!hub.ready());
+        // Rethrows anything that went wrong during initialization
+        hubInit.join();
 
         waitForStart();
 
@@ -61,22 +70,17 @@ public class HubTest extends LinearOpMode {
             } else {
                 multipleTelemetry.addData(
                     "encoder 1 position",
-                    hub.readEncoder(1).position
+                    encoder1.getPosition()
                 );
 
                 multipleTelemetry.addData(
                     "encoder 2 position",
-                    hub.readEncoder(2).position
+                    encoder2.getPosition()
                 );
 
                 multipleTelemetry.addData(
                     "encoder 2 velocity",
-                    hub.readEncoder(2).velocity
-                );
-
-                SRSHub.GoBildaPinpoint pinpoint = hub.getI2CDevice(
-                    1,
-                    SRSHub.GoBildaPinpoint.class
+                    encoder2.getVelocity()
                 );
 
                 if (!pinpoint.disconnected) {
@@ -97,6 +101,8 @@ public class HubTest extends LinearOpMode {
                 }
             }
 
+            hub.getMetrics().addTo(multipleTelemetry);
+
             multipleTelemetry.update();
         }
     }
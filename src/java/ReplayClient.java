@@ -0,0 +1,225 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.qualcomm.robotcore.hardware.I2cAddr;
+import com.qualcomm.robotcore.hardware.I2cDeviceSynchSimple;
+import com.qualcomm.robotcore.hardware.I2cWaitControl;
+import com.qualcomm.robotcore.hardware.TimestampedData;
+
+import java.util.Random;
+
+/**
+ * an in-memory I2C client for timing the SRSHub driver without an SRSHub attached, used by {@link HubBenchmark} and the host JMH benchmarks;
+ * it reports the expected firmware version, ignores writes, and answers each READ with the next of a few pre-built random frames, so that
+ * update decodes changed data instead of skipping unchanged devices, while the client itself neither allocates nor waits
+ */
+class ReplayClient implements I2cDeviceSynchSimple {
+    private static final int FRAMES = 16;
+
+    private final Random random = new Random(0);
+
+    private final byte[] deviceInfo = new byte[]{
+        SRSHub.DEVICE_ID,
+        SRSHub.DEVICE_MAJOR_VERSION,
+        SRSHub.DEVICE_MINOR_VERSION,
+        SRSHub.DEVICE_PATCH_VERSION
+    };
+
+    private final byte[][][] frames = new byte[SRSHub.MAX_UPDATE_LENGTH + 1][][];
+
+    private int next = 0;
+
+    private I2cAddr i2cAddress = I2cAddr.create7bit(0x57);
+    private HealthStatus healthStatus = HealthStatus.UNKNOWN;
+    private String userConfiguredName = "ReplayClient";
+
+    /**
+     * @param length the length of the frame, including its device ID and CRC
+     *
+     * @return a frame of random data with a valid device ID and CRC
+     */
+    static byte[] randomFrame(Random random, int length) {
+        byte[] frame = new byte[length];
+
+        random.nextBytes(frame);
+
+        frame[0] = SRSHub.DEVICE_ID;
+
+        int crc = SRSHub.computeCRC16(
+            frame,
+            0,
+            length - 2
+        );
+
+        frame[length - 2] = (byte) (crc >> 8);
+        frame[length - 1] = (byte) crc;
+
+        return frame;
+    }
+
+    public byte[] read(int ireg, int creg) {
+        if (ireg == SRSHub.Register.DEVICE_INFO.address) {
+            return deviceInfo;
+        }
+
+        if (frames[creg] == null) {
+            frames[creg] = new byte[FRAMES][];
+
+            for (int i = 0; i < FRAMES; i++) {
+                frames[creg][i] = randomFrame(
+                    random,
+                    creg
+                );
+            }
+        }
+
+        next = (next + 1) % FRAMES;
+
+        return frames[creg][next];
+    }
+
+    public byte read8(int ireg) {
+        return read(
+            ireg,
+            1
+        )[0];
+    }
+
+    public TimestampedData readTimeStamped(int ireg, int creg) {
+        TimestampedData result = new TimestampedData();
+
+        result.data = read(
+            ireg,
+            creg
+        );
+
+        result.nanoTime = System.nanoTime();
+
+        return result;
+    }
+
+    public byte read8() {
+        return read8(SRSHub.Register.READ.address);
+    }
+
+    public byte[] read(int creg) {
+        return read(
+            SRSHub.Register.READ.address,
+            creg
+        );
+    }
+
+    public TimestampedData readTimeStamped(int creg) {
+        return readTimeStamped(
+            SRSHub.Register.READ.address,
+            creg
+        );
+    }
+
+    public void write8(int bVal) {
+    }
+
+    public void write8(int ireg, int bVal) {
+    }
+
+    public void write(byte[] data) {
+    }
+
+    public void write(int ireg, byte[] data) {
+    }
+
+    public void write8(int bVal, I2cWaitControl waitControl) {
+    }
+
+    public void write8(int ireg, int bVal, I2cWaitControl waitControl) {
+    }
+
+    public void write(byte[] data, I2cWaitControl waitControl) {
+    }
+
+    public void write(int ireg, byte[] data, I2cWaitControl waitControl) {
+    }
+
+    public void waitForWriteCompletions(I2cWaitControl waitControl) {
+    }
+
+    public void enableWriteCoalescing(boolean enable) {
+    }
+
+    public boolean isWriteCoalescingEnabled() {
+        return false;
+    }
+
+    public boolean isArmed() {
+        return true;
+    }
+
+    @Deprecated
+    public void setI2cAddr(I2cAddr i2cAddr) {
+        setI2cAddress(i2cAddr);
+    }
+
+    @Deprecated
+    public I2cAddr getI2cAddr() {
+        return getI2cAddress();
+    }
+
+    public void setI2cAddress(I2cAddr newAddress) {
+        i2cAddress = newAddress;
+    }
+
+    public I2cAddr getI2cAddress() {
+        return i2cAddress;
+    }
+
+    public void setLogging(boolean enabled) {
+    }
+
+    public boolean getLogging() {
+        return false;
+    }
+
+    public void setLoggingTag(String loggingTag) {
+    }
+
+    public String getLoggingTag() {
+        return "ReplayClient";
+    }
+
+    public void setHealthStatus(HealthStatus status) {
+        healthStatus = status;
+    }
+
+    public HealthStatus getHealthStatus() {
+        return healthStatus;
+    }
+
+    public void setUserConfiguredName(String name) {
+        userConfiguredName = name;
+    }
+
+    public String getUserConfiguredName() {
+        return userConfiguredName;
+    }
+
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    public String getDeviceName() {
+        return "ReplayClient";
+    }
+
+    public String getConnectionInfo() {
+        return "replayed";
+    }
+
+    public int getVersion() {
+        return 1;
+    }
+
+    public void resetDeviceConfigurationForOpMode() {
+    }
+
+    public void close() {
+    }
+}
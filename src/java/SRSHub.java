@@ -12,41 +12,188 @@ import com.qualcomm.robotcore.hardware.configuration.annotations.DevicePropertie
 import com.qualcomm.robotcore.hardware.configuration.annotations.I2cDeviceType;
 import com.qualcomm.robotcore.util.RobotLog;
 
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
 
 @I2cDeviceType
 @DeviceProperties(xmlTag = "SRSHub", name = "SRSHub")
 public class SRSHub extends I2cDeviceSynchDevice<I2cDeviceSynchSimple> {
     private static final int I2C_ADDRESS = 0x57;
 
-    private static final int DEVICE_ID = 0x61;
+    static final int DEVICE_ID = 0x61;
 
-    private static final int DEVICE_MAJOR_VERSION = 1;
-    private static final int DEVICE_MINOR_VERSION = 4;
-    private static final int DEVICE_PATCH_VERSION = 4;
+    static final int DEVICE_MAJOR_VERSION = 1;
+    static final int DEVICE_MINOR_VERSION = 4;
+    static final int DEVICE_PATCH_VERSION = 4;
 
     private static final int BITS_PER_ANALOG_DIGITAL_DEVICE = 2;
     private static final int BITS_PER_ENCODER = 2;
     private static final int MIN_BITS_PER_I2C_BUS = 16;
     private static final int BITS_PER_I2C_DEVICE = 4;
 
+    static final int MAX_UPDATE_LENGTH = 100;
+
+    private static final int BITS_PER_ANALOG_VALUE = 12;
+    private static final int BITS_PER_DIGITAL_VALUE = 1;
+    private static final int BITS_PER_ENCODER_POSITION = 16;
+    private static final int BITS_PER_ENCODER_VELOCITY = 32;
+
+    // the number of distinct quadrature deltas, which the SRSHub sends modulo this
+    private static final long ENCODER_DELTA_RANGE = 1L << BITS_PER_ENCODER_POSITION;
+
+    // each decode step is {op, bit offset, bit width, target slot}
+    private static final int DECODE_STRIDE = 4;
+
+    private static final int DECODE_ANALOG = 0;
+    private static final int DECODE_DIGITAL = 1;
+    private static final int DECODE_ENCODER_DELTA = 2;
+    private static final int DECODE_ENCODER_POSITION = 3;
+    private static final int DECODE_ENCODER_VELOCITY = 4;
+    private static final int DECODE_I2C_DEVICE = 5;
+
+    private static final int FRAME_VALID = 0;
+    private static final int FRAME_DISCONNECTED = 1;
+    private static final int FRAME_CRC_MISMATCH = 2;
+
+    // set on the pending frame index when the poller has published a frame that update has not yet taken
+    private static final int FRESH_FRAME = 4;
+
+    // consecutive disconnected reads before the SRSHub is assumed to have reset, rather than to have missed a single transaction
+    private static final int RECONNECT_THRESHOLD = 3;
+
+    private static final long MIN_RECONNECT_BACKOFF = 50000000;
+    private static final long MAX_RECONNECT_BACKOFF = 2000000000;
+
     private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
 
+    // CRC16_TABLE[i] is the CRC16-CCITT register after shifting the byte i through an empty register bit by bit
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < CRC16_TABLE.length; i++) {
+            int crc = i << 8;
+
+            for (int j = 0; j < 8; j++) {
+                if ((crc & 0x8000) != 0) {
+                    crc = (crc << 1) ^ 0x1021;
+                }
+                else {
+                    crc <<= 1;
+                }
+
+                crc &= 0xFFFF;
+            }
+
+            CRC16_TABLE[i] = crc;
+        }
+    }
+
     private Config config;
 
-    private int updateLength = 8;
+    private int updateLength = 0;
 
-    private boolean ready = false;
+    private volatile boolean ready = false;
     private boolean disconnected = false;
 
+    private long frameSequence = 0;
+    private long frameTimestamp = 0;
+    private long frameSampleTimestamp = 0;
+    private boolean frameUnchanged = false;
+
+    // held for writing while update changes the decoded state, so that other threads can read it consistently without blocking update
+    private final StampedLock stateLock = new StampedLock();
+
     private final double[] analogDigitalValues =
         new double[12];
 
-    private final PosVel[] encoderValues = new PosVel[6];
+    private final long[] encoderPositions = new long[6];
+    private final int[] encoderVelocities = new int[6];
+
+    private final BitReader reader = new BitReader(MAX_UPDATE_LENGTH);
+
+    private int[] decodePlan = new int[0];
+    private I2CDevice[] decodeDevices = new I2CDevice[0];
+
+    private long decodeCycle = 0;
+
+    private Thread poller;
+
+    // the poller fills the back frame, exchanges it with the pending frame, and update exchanges the pending frame with the front frame, so
+    // neither side waits on the other or sees a frame while it is being written
+    private final Frame[] frames = new Frame[]{
+        new Frame(),
+        new Frame(),
+        new Frame()
+    };
+
+    private final AtomicInteger pendingFrame = new AtomicInteger();
+
+    private final Metrics metrics = new Metrics();
+
+    private volatile InitTimings initTimings;
+
+    private History history;
+
+    private DeadWheelOdometry odometry;
+
+    // indexed by encoder port, from 0; null for ports without an estimator
+    private VelocityEstimator[] velocityEstimators = new VelocityEstimator[6];
+
+    // commands waiting to be sent by the next read, and the list they are moved to while being sent so that queueing never waits on the bus
+    private final Object commandLock = new Object();
+
+    private CommandQueue queuedCommands = new CommandQueue();
+    private CommandQueue sendingCommands = new CommandQueue();
+
+    private volatile boolean autoReconnect = true;
+
+    private volatile long restartWait = 2500;
+
+    private volatile int maxCrcRetries = 1;
+    private volatile long crcRetryBudget = 5000000;
+
+    private UpdateResult lastUpdateResult = UpdateResult.STALE;
+
+    // reconnection state, only touched by whichever thread is reading the SRSHub
+    private byte[] initData;
+
+    private int disconnectedReads = 0;
+
+    // whether the SRSHub answered DEVICE_INFO during the current outage, so that the next READ tells a bus glitch from a reset
+    private boolean answeredDuringOutage = false;
+
+    private long outageStart = 0;
+    private long nextReconnect = 0;
+    private long reconnectBackoff = MIN_RECONNECT_BACKOFF;
+
+    // the INIT payload most recently sent to each SRSHub, keyed by its I2C client, which the hardware map keeps from one OpMode to the next;
+    // the client itself is the key because clients without a bus, such as simulated ones, may share their connection info
+    private static final WeakHashMap<I2cDeviceSynchSimple, byte[]> ACTIVE_CONFIGS = new WeakHashMap<>();
+
+    private int frontFrame;
+    private int backFrame;
+
+    private final BitReader pollReader = new BitReader(MAX_UPDATE_LENGTH);
+    private final long[] polledEncoderPositions = new long[6];
+    private final int[] polledEncoderVelocities = new int[6];
+
+    // the sample time of the last frame whose quadrature deltas were added up, by update and by the poller, or 0 if the next frame's deltas
+    // cannot be unwrapped because there was no such frame since init or the SRSHub was disconnected since
+    private long deltaTimestamp = 0;
+    private long polledDeltaTimestamp = 0;
+
+    // the accumulated quadrature positions and odometry of the frame being decoded, or null when decoding a frame read directly by update
+    private long[] frameEncoderPositions;
+    private double[] frameOdometry;
 
     public enum AnalogDigitalDevice {
         ANALOG(0),
@@ -72,1320 +219,4342 @@ public class SRSHub extends I2cDeviceSynchDevice<I2cDeviceSynchSimple> {
         }
     }
 
+    /**
+     * what the most recent update did with the SRSHub's data
+     */
+    public enum UpdateResult {
+        /**
+         * a new frame was decoded on the first read
+         */
+        FRESH,
+        /**
+         * a new frame was decoded after one or more reads were rejected because their CRC did not match
+         */
+        RETRIED,
+        /**
+         * no new frame was decoded, so the values are those of an earlier update; either every read within the retry policy failed its CRC,
+         * or, while polling, the polling thread has not read a new frame since the last update
+         */
+        STALE,
+        /**
+         * the SRSHub did not answer
+         */
+        DISCONNECTED
+    }
+
     public static class PosVel {
         public int position = 0;
         public int velocity = 0;
     }
 
-    public static abstract class Command {
-        protected abstract int getLength();
+    /**
+     * a consistent copy of the SRSHub's decoded values, all from the same frame
+     */
+    public static class Snapshot {
+        public final double[] analogDigitalValues = new double[12];
 
-        protected abstract BitSet getData();
+        public final long[] encoderPositions = new long[6];
+        public final int[] encoderVelocities = new int[6];
+
+        public boolean disconnected = false;
+
+        public long frameSequence = 0;
+        public long frameTimestamp = 0;
+        public long frameSampleTimestamp = 0;
     }
 
-    public static abstract class I2CDevice {
-        protected abstract int getValue();
+    public static class Pose {
+        public double x = 0;
+        public double y = 0;
+        public double heading = 0;
+    }
 
-        protected abstract int getInitLength();
+    /**
+     * reads little-endian bit fields from a frame without allocating; a single instance is reused for every update, and it keeps the previously
+     * loaded frame so that unchanged fields can be detected
+     */
+    public static class BitReader {
+        private long[] words;
+        private long[] previousWords;
+
+        BitReader(int capacity) {
+            // one spare word so that a field straddling the last word boundary can always read its upper half
+            words = new long[(capacity + 7) / 8 + 1];
+            previousWords = new long[words.length];
+        }
 
-        protected abstract int getUpdateLength();
+        void load(byte[] data, int length) {
+            long[] swap = previousWords;
 
-        protected abstract int getAddress();
+            previousWords = words;
+            words = swap;
 
-        protected abstract BitSet getConfig();
+            Arrays.fill(
+                words,
+                0
+            );
 
-        protected abstract void parseUpdate(BitSet data, int start);
-    }
+            for (int i = 0; i < length; i++) {
+                words[i >>> 3] |= (data[i] & 0xFFL) << ((i & 7) << 3);
+            }
+        }
 
-    public static class APDS9151 extends I2CDevice {
-        private final BitSet config = new BitSet(getInitLength());
+        /**
+         * @param offset the index of the field's least significant bit
+         * @param width the number of bits in the field
+         *
+         * @return whether any bit of the field differs from the previously loaded frame
+         */
+        boolean changed(int offset, int width) {
+            int end = offset + width;
 
-        public boolean disconnected = false;
+            int first = offset >>> 6;
+            int last = (end - 1) >>> 6;
 
-        public short proximity;
-        public int infrared;
-        public int red;
-        public int green;
-        public int blue;
+            for (int word = first; word <= last; word++) {
+                long difference = words[word] ^ previousWords[word];
 
-        protected int getValue() {
-            return 0;
-        }
+                if (word == first) {
+                    difference &= -1L << (offset & 63);
+                }
 
-        protected int getInitLength() {
-            return 0;
-        }
+                if (word == last && (end & 63) != 0) {
+                    difference &= (1L << (end & 63)) - 1;
+                }
 
-        protected int getUpdateLength() {
-            return 76;
-        }
+                if (difference != 0) {
+                    return true;
+                }
+            }
 
-        protected int getAddress() {
-            return 0x52;
+            return false;
         }
 
-        protected BitSet getConfig() {
-            return config;
+        /**
+         * @param offset the index of the bit being read
+         *
+         * @return whether the bit is set
+         */
+        public boolean readBit(int offset) {
+            return (words[offset >>> 6] >>> (offset & 63) & 1) == 1;
         }
 
-        protected void parseUpdate(BitSet data, int start) {
-            int index = start;
+        /**
+         * @param offset the index of the field's least significant bit
+         * @param width the number of bits in the field, from 1 to 64
+         *
+         * @return the field as an unsigned value
+         */
+        public long readBits(int offset, int width) {
+            int word = offset >>> 6;
+            int shift = offset & 63;
 
-            disconnected = data.get(index++);
+            long value = words[word] >>> shift;
 
-            byte[] proximityChunk = data
-                .get(
-                    index,
-                    index + 11
-                )
-                .toByteArray();
+            if (shift + width > 64) {
+                value |= words[word + 1] << (64 - shift);
+            }
 
-            byte[] paddedProximityChunk = new byte[2];
+            return width == 64 ? value : value & ((1L << width) - 1);
+        }
 
-            System.arraycopy(
-                proximityChunk,
-                0,
-                paddedProximityChunk,
-                0,
-                proximityChunk.length
-            );
+        /**
+         * @param offset the index of the field's least significant bit
+         * @param width the number of bits in the field, from 1 to 64
+         *
+         * @return the field as a two's complement value, sign-extended from its top bit
+         */
+        public long readSignedBits(int offset, int width) {
+            return readBits(
+                offset,
+                width
+            ) << (64 - width) >> (64 - width);
+        }
 
-            proximity = ByteBuffer
-                .wrap(paddedProximityChunk)
-                .order(BYTE_ORDER)
-                .getShort();
+        /**
+         * @param offset the index of the field's least significant bit
+         *
+         * @return the 32-bit field as an IEEE 754 float
+         */
+        public float readFloat(int offset) {
+            return Float.intBitsToFloat((int) readBits(
+                offset,
+                32
+            ));
+        }
+    }
 
-            index += 11;
+    /**
+     * a fixed-size log-linear histogram of nanosecond durations, in the style of HdrHistogram: values are kept to within about 6% and
+     * recording never allocates; it may be queried from any thread while the thread reading the SRSHub records into it
+     */
+    public static class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
 
-            byte[] infraredChunk = data
-                .get(
-                    index,
-                    index + 16
-                )
-                .toByteArray();
+        // durations are clamped to 2^40 ns, about 18 minutes
+        private static final int MAX_MAGNITUDE = 40;
 
-            byte[] paddedInfraredChunk = new byte[4];
+        // held for writing by the owning metrics while recording or resetting, so that a query can check that it saw a consistent state
+        private final StampedLock lock;
 
-            System.arraycopy(
-                infraredChunk,
-                0,
-                paddedInfraredChunk,
-                0,
-                infraredChunk.length
-            );
+        private final long[] counts = new long[(MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS];
 
-            infrared = ByteBuffer
-                .wrap(paddedInfraredChunk)
-                .order(BYTE_ORDER)
-                .getInt();
+        private volatile long count = 0;
+        private volatile long total = 0;
+        private volatile long max = 0;
 
-            index += 16;
+        Histogram(StampedLock lock) {
+            this.lock = lock;
+        }
 
-            byte[] redChunk = data
-                .get(
-                    index,
-                    index + 16
+        /**
+         * must be called with the lock held for writing
+         */
+        void record(long nanos) {
+            long value = Math.max(
+                0,
+                Math.min(
+                    nanos,
+                    (1L << MAX_MAGNITUDE) - 1
                 )
-                .toByteArray();
+            );
 
-            byte[] paddedRedChunk = new byte[4];
+            counts[bucket(value)]++;
 
-            System.arraycopy(
-                redChunk,
-                0,
-                paddedRedChunk,
-                0,
-                redChunk.length
+            count++;
+            total += value;
+            max = Math.max(
+                max,
+                value
             );
+        }
 
-            red = ByteBuffer
-                .wrap(paddedRedChunk)
-                .order(BYTE_ORDER)
-                .getInt();
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
 
-            index += 16;
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
 
-            byte[] greenChunk = data
-                .get(
-                    index,
-                    index + 16
-                )
-                .toByteArray();
+            return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) (value >>> (magnitude - SUB_BUCKET_BITS) & (SUB_BUCKETS - 1));
+        }
 
-            byte[] paddedGreenChunk = new byte[4];
+        private static long highestValueIn(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
 
-            System.arraycopy(
-                greenChunk,
-                0,
-                paddedGreenChunk,
-                0,
-                greenChunk.length
-            );
+            int shift = bucket / SUB_BUCKETS - 1;
 
-            green = ByteBuffer
-                .wrap(paddedGreenChunk)
-                .order(BYTE_ORDER)
-                .getInt();
+            return ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift) - 1;
+        }
 
-            index += 16;
+        /**
+         * @return the number of recorded durations
+         */
+        public long getCount() {
+            return count;
+        }
 
-            byte[] blueChunk = data
-                .get(
-                    index,
-                    index + 16
-                )
-                .toByteArray();
+        /**
+         * @return the mean recorded duration in nanoseconds, or 0 if nothing has been recorded
+         */
+        public double getMean() {
+            while (true) {
+                long stamp = lock.tryOptimisticRead();
 
-            byte[] paddedBlueChunk = new byte[4];
+                long count = this.count;
+                long total = this.total;
 
-            System.arraycopy(
-                blueChunk,
-                0,
-                paddedBlueChunk,
-                0,
-                blueChunk.length
-            );
+                if (lock.validate(stamp)) {
+                    return count == 0 ? 0 : total / (double) count;
+                }
 
-            blue = ByteBuffer
-                .wrap(paddedBlueChunk)
-                .order(BYTE_ORDER)
-                .getInt();
+                Thread.yield();
+            }
         }
-    }
 
-    public static class VL53L5CX extends I2CDevice {
-        public enum Resolution {
-            GRID_4x4(0),
-            GRID_8x8(1);
+        /**
+         * @return the longest recorded duration in nanoseconds
+         */
+        public long getMax() {
+            return max;
+        }
 
-            final byte value;
+        /**
+         * @param percentile the percentile being queried, from 0 to 100
+         *
+         * @return the duration in nanoseconds that the given percentage of recorded durations do not exceed, or 0 if nothing has been recorded
+         */
+        public long getPercentile(double percentile) {
+            while (true) {
+                long stamp = lock.tryOptimisticRead();
 
-            Resolution(int value) {
-                this.value = (byte) value;
+                long value = percentile(percentile);
+
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+
+                Thread.yield();
             }
         }
 
-        private final BitSet config = new BitSet(getInitLength());
+        private long percentile(double percentile) {
+            long target = Math.max(
+                1,
+                (long) Math.ceil(percentile / 100 * count)
+            );
 
-        public boolean disconnected = false;
+            long seen = 0;
 
-        public final short[] distances;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
 
-        public VL53L5CX(Resolution resolution) {
-            config.set(
-                0,
-                resolution.value == 1
-            );
+                if (seen >= target) {
+                    return Math.min(
+                        highestValueIn(i),
+                        max
+                    );
+                }
+            }
 
-            distances = resolution.value == 0 ? new short[16] : new short[64];
+            return 0;
         }
 
-        protected int getValue() {
-            return 1;
-        }
+        /**
+         * must be called with the lock held for writing
+         */
+        void reset() {
+            Arrays.fill(
+                counts,
+                0
+            );
 
-        protected int getInitLength() {
-            return 1;
+            count = 0;
+            total = 0;
+            max = 0;
         }
+    }
 
-        protected int getUpdateLength() {
-            return config.get(0) ? 705 : 177;
-        }
+    /**
+     * timing and error counters for the SRSHub's reads and updates; while polling, read-side values are written by the polling thread, so a
+     * query may be a read or two behind, but each value is read whole and a histogram query sees a consistent state
+     */
+    public static class Metrics {
+        // weight of the newest interval in the smoothed time between frames
+        private static final double RATE_SMOOTHING = 0.05;
 
-        protected int getAddress() {
-            return 0x29;
-        }
+        // held for writing while recording or resetting, since the polling thread, the OpMode thread and reset all write; the counters are
+        // volatile so that single values can be read without it
+        private final StampedLock lock = new StampedLock();
 
-        protected BitSet getConfig() {
-            return config;
-        }
+        private final Histogram readLatency = new Histogram(lock);
+        private final Histogram decodeTime = new Histogram(lock);
 
-        protected void parseUpdate(BitSet data, int start) {
-            int index = start;
+        private volatile long crcFailures = 0;
+        private volatile long disconnects = 0;
 
-            disconnected = data.get(index++);
+        private volatile long consecutiveFailures = 0;
+        private volatile long maxConsecutiveFailures = 0;
 
-            for (int k = 0; k < (getUpdateLength() - 1) / 11; k++) {
-                byte[] chunk = data
-                    .get(
-                        index,
-                        index + 11
-                    )
-                    .toByteArray();
+        private long lastFrameTimestamp = 0;
+        private volatile double frameInterval = 0;
 
-                index += 11;
+        private final Histogram outageTime = new Histogram(lock);
 
-                byte[] paddedChunk = new byte[2];
+        private volatile long reconnects = 0;
 
-                System.arraycopy(
-                    chunk,
-                    0,
-                    paddedChunk,
-                    0,
-                    chunk.length
-                );
+        private volatile long crcRetries = 0;
 
-                distances[k] = ByteBuffer
-                    .wrap(paddedChunk)
-                    .order(BYTE_ORDER)
-                    .getShort();
-            }
-        }
-    }
+        private volatile long encoderWraps = 0;
+        private volatile long ambiguousEncoderDeltas = 0;
 
-    public static class VL53L0X extends I2CDevice {
-        private final BitSet config = new BitSet(getInitLength());
+        void recordRead(long nanos, int status) {
+            long stamp = lock.writeLock();
 
-        public boolean disconnected = false;
+            try {
+                readLatency.record(nanos);
 
-        public float distance;
+                if (status == FRAME_VALID) {
+                    consecutiveFailures = 0;
 
-        protected int getValue() {
-            return 2;
-        }
+                    return;
+                }
 
-        protected int getInitLength() {
-            return 0;
-        }
+                if (status == FRAME_CRC_MISMATCH) {
+                    crcFailures++;
+                }
 
-        protected int getUpdateLength() {
-            return 17;
+                consecutiveFailures++;
+                maxConsecutiveFailures = Math.max(
+                    maxConsecutiveFailures,
+                    consecutiveFailures
+                );
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
         }
 
-        protected int getAddress() {
-            return 0x29;
-        }
+        void recordDecode(long nanos, long frameTimestamp) {
+            long stamp = lock.writeLock();
 
-        protected BitSet getConfig() {
-            return config;
-        }
+            try {
+                decodeTime.record(nanos);
 
-        protected void parseUpdate(BitSet data, int start) {
-            int index = start;
+                if (lastFrameTimestamp != 0) {
+                    long interval = frameTimestamp - lastFrameTimestamp;
 
-            disconnected = data.get(index++);
+                    frameInterval = frameInterval == 0 ? interval : frameInterval + (interval - frameInterval) * RATE_SMOOTHING;
+                }
 
-            byte[] chunk = data
-                .get(
-                    index,
-                    index + 16
-                )
-                .toByteArray();
+                lastFrameTimestamp = frameTimestamp;
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        }
 
-            byte[] paddedChunk = new byte[4];
+        void recordDisconnect() {
+            long stamp = lock.writeLock();
 
-            System.arraycopy(
-                chunk,
-                0,
-                paddedChunk,
-                0,
-                chunk.length
-            );
+            disconnects++;
 
-            distance = ByteBuffer
-                .wrap(paddedChunk)
-                .order(BYTE_ORDER)
-                .getShort() & 0xFFFF;
+            lock.unlockWrite(stamp);
         }
-    }
 
-    public static class GoBildaPinpoint extends I2CDevice {
-        private static final int ID = 3;
+        void recordOutage(long nanos) {
+            long stamp = lock.writeLock();
 
-        public enum EncoderDirection {
-            FORWARD,
-            REVERSED
+            outageTime.record(nanos);
+
+            lock.unlockWrite(stamp);
         }
 
-        public static class ResetIMUCommand extends Command {
-            private final BitSet data;
+        void recordReconnect() {
+            long stamp = lock.writeLock();
 
-            /**
-             * @param bus the bus of the command's target device
-             */
-            public ResetIMUCommand(int bus) {
-                data = new BitSet(getLength());
+            reconnects++;
 
-                data.set(
-                    0,
-                    (bus & 1) == 1
-                );
+            lock.unlockWrite(stamp);
+        }
 
-                data.set(
-                    1,
-                    (bus >> 1 & 1) == 1
-                );
+        void recordRetry() {
+            long stamp = lock.writeLock();
 
-                int index = 2;
+            crcRetries++;
 
-                for (int i = 0; i < BITS_PER_I2C_DEVICE; i++) {
-                    data.set(
-                        index++,
-                        (ID >> i & 1) == 1
-                    );
-                }
+            lock.unlockWrite(stamp);
+        }
 
-                for (int i = 0; i < 4; i++) {
-                    data.set(
-                        index++,
-                        false
-                    );
-                }
+        void recordEncoderDelta(long wraps, boolean ambiguous) {
+            if (wraps == 0 && !ambiguous) {
+                return;
             }
 
-            protected int getLength() {
-                return 10;
+            long stamp = lock.writeLock();
+
+            if (wraps != 0) {
+                encoderWraps++;
             }
 
-            protected BitSet getData() {
-                return data;
+            if (ambiguous) {
+                ambiguousEncoderDeltas++;
             }
-        }
 
-        public static class SetPositionCommand extends Command {
-            private final BitSet data;
+            lock.unlockWrite(stamp);
+        }
 
-            /**
-             * @param bus the bus of the command's target device
-             */
-            public SetPositionCommand(int bus, float xPosition, float yPosition, float hOrientation) {
-                data = new BitSet(getLength());
+        /**
+         * @return the time taken by each I2C bulk-read of the SRSHub
+         */
+        public Histogram getReadLatency() {
+            return readLatency;
+        }
 
-                data.set(
-                    0,
-                    (bus & 1) == 1
-                );
+        /**
+         * @return the time taken to decode each new frame
+         */
+        public Histogram getDecodeTime() {
+            return decodeTime;
+        }
 
-                data.set(
-                    1,
-                    (bus >> 1 & 1) == 1
-                );
+        /**
+         * @return the time from the first disconnected read of each outage to the next valid frame, i.e. the time taken to recover
+         */
+        public Histogram getOutageTime() {
+            return outageTime;
+        }
 
-                int index = 2;
+        /**
+         * @return the number of times the SRSHub was reconfigured after it was found to have reset
+         */
+        public long getReconnects() {
+            return reconnects;
+        }
 
-                for (int i = 0; i < BITS_PER_I2C_DEVICE; i++) {
-                    data.set(
-                        index++,
-                        (ID >> i & 1) == 1
-                    );
-                }
+        /**
+         * @return the number of frames rejected because their CRC did not match
+         */
+        public long getCrcFailures() {
+            return crcFailures;
+        }
 
-                for (int i = 0; i < 4; i++) {
-                    data.set(
-                        index++,
-                        (1 >> i & 1) == 1
-                    );
-                }
+        /**
+         * @return the number of reads made again because the previous read failed its CRC
+         */
+        public long getCrcRetries() {
+            return crcRetries;
+        }
 
-                ByteBuffer buffer = ByteBuffer.allocate(12);
+        /**
+         * @return the number of quadrature deltas that overflowed the SRSHub's 16 bits and were unwrapped using the encoder's velocity
+         */
+        public long getEncoderWraps() {
+            return encoderWraps;
+        }
 
-                buffer.putFloat(xPosition);
-                buffer.putFloat(yPosition);
-                buffer.putFloat(hOrientation);
+        /**
+         * @return the number of quadrature deltas too far from what the encoder's velocity predicted to be unwrapped with confidence; a
+         *     nonzero count means counts may have been lost, and that the SRSHub should be read more often
+         */
+        public long getAmbiguousEncoderDeltas() {
+            return ambiguousEncoderDeltas;
+        }
 
-                byte[] payload = buffer.array();
+        /**
+         * @return the number of times the SRSHub went from connected to disconnected
+         */
+        public long getDisconnects() {
+            return disconnects;
+        }
 
-                for (int i = 0; i < payload.length; i++) {
-                    for (int bit = 7; bit >= 0; bit--) {
-                        data.set(
-                            index++,
-                            ((payload[i] >> bit) & 1) == 1
-                        );
-                    }
-                }
-            }
+        /**
+         * @return the number of failed reads since the last successful one
+         */
+        public long getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
 
-            protected int getLength() {
-                return 106;
-            }
+        /**
+         * @return the longest run of failed reads
+         */
+        public long getMaxConsecutiveFailures() {
+            return maxConsecutiveFailures;
+        }
 
-            protected BitSet getData() {
-                return data;
-            }
+        /**
+         * @return the smoothed rate, in hertz, at which new frames are decoded, or 0 if fewer than two have been
+         */
+        public double getUpdateRate() {
+            return frameInterval == 0 ? 0 : 1e9 / frameInterval;
         }
 
-        private final BitSet config;
+        /**
+         * adds a short summary of these metrics to the telemetry
+         */
+        public void addTo(Telemetry telemetry) {
+            telemetry.addData(
+                "SRSHub rate",
+                "%.0f Hz",
+                getUpdateRate()
+            );
 
-        public boolean disconnected = false;
+            telemetry.addData(
+                "SRSHub read",
+                "p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                readLatency.getPercentile(50) / 1e6,
+                readLatency.getPercentile(99) / 1e6,
+                readLatency.getMax() / 1e6
+            );
 
-        public short deviceStatus;
+            telemetry.addData(
+                "SRSHub decode",
+                "p50 %.1f us, p99 %.1f us",
+                decodeTime.getPercentile(50) / 1e3,
+                decodeTime.getPercentile(99) / 1e3
+            );
 
-        public float xPosition;
-        public float yPosition;
-        public float hOrientation;
+            telemetry.addData(
+                "SRSHub errors",
+                "%d CRC (%d retried), %d disconnects, %d in a row (max %d)",
+                crcFailures,
+                crcRetries,
+                disconnects,
+                consecutiveFailures,
+                maxConsecutiveFailures
+            );
 
-        public float xVelocity;
-        public float yVelocity;
-        public float hVelocity;
+            telemetry.addData(
+                "SRSHub encoders",
+                "%d wraps, %d ambiguous",
+                encoderWraps,
+                ambiguousEncoderDeltas
+            );
+
+            telemetry.addData(
+                "SRSHub recovery",
+                "%d reconnects, max outage %.0f ms",
+                reconnects,
+                outageTime.getMax() / 1e6
+            );
+        }
 
         /**
-         * @param xPodOffset the offset of your forward tracking pod from the tracking center in millimeters
-         * @param yPodOffset the offset of your strafe tracking pod from the tracking center in millimeters
-         * @param encoderResolution the millimeters traveled per encoder tick
-         * @param xEncoderDirection the direction of the forward encoder
-         * @param yEncoderDirection the direction of the strafe encoder
+         * clears all metrics
          */
-        public GoBildaPinpoint(
-            float xPodOffset,
-            float yPodOffset,
-            float encoderResolution,
-            EncoderDirection xEncoderDirection,
-            EncoderDirection yEncoderDirection
-        ) {
-            ByteBuffer buffer = ByteBuffer.allocate(13);
+        public void reset() {
+            long stamp = lock.writeLock();
 
-            buffer.putFloat(xPodOffset);
-            buffer.putFloat(yPodOffset);
-            buffer.putFloat(encoderResolution);
+            try {
+                readLatency.reset();
+                decodeTime.reset();
 
-            int directionBits = 0;
+                crcFailures = 0;
+                disconnects = 0;
 
-            if (xEncoderDirection == EncoderDirection.REVERSED) {
-                directionBits |= 1;
-            }
+                consecutiveFailures = 0;
+                maxConsecutiveFailures = 0;
 
-            if (yEncoderDirection == EncoderDirection.REVERSED) {
-                directionBits |= 2;
-            }
+                lastFrameTimestamp = 0;
+                frameInterval = 0;
 
-            buffer.put((byte) directionBits);
+                outageTime.reset();
 
-            config = BitSet.valueOf(buffer.array());
-        }
+                reconnects = 0;
 
-        protected int getValue() {
-            return ID;
-        }
+                crcRetries = 0;
 
-        protected int getInitLength() {
-            return 98;
+                encoderWraps = 0;
+                ambiguousEncoderDeltas = 0;
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
         }
+    }
 
-        protected int getUpdateLength() {
-            return 201;
-        }
+    /**
+     * how long each phase of the most recent init took, in nanoseconds
+     */
+    public static class InitTimings {
+        /**
+         * whether the SRSHub already held the configuration, so that the restart was skipped
+         */
+        public final boolean warmStart;
 
-        protected int getAddress() {
-            return 0x31;
-        }
+        /**
+         * encoding the INIT bitstream and compiling the decode plan
+         */
+        public final long encodeNanos;
 
-        protected BitSet getConfig() {
-            return config;
-        }
+        /**
+         * writing RESTART and waiting for the SRSHub to reboot
+         */
+        public final long restartNanos;
 
-        protected void parseUpdate(BitSet data, int start) {
-            int index = start;
+        /**
+         * checking the firmware version, or probing the held configuration on a warm start
+         */
+        public final long verifyNanos;
 
-            disconnected = data.get(index++);
+        /**
+         * writing INIT and reading the first frame
+         */
+        public final long configureNanos;
 
-            byte[] deviceStatusChunk = data
-                .get(
-                    index,
-                    index + 8
-                )
-                .toByteArray();
+        public final long totalNanos;
 
-            byte[] paddedDeviceStatusChunk = new byte[2];
+        InitTimings(boolean warmStart, long start, long encoded, long restarted, long verified, long configured) {
+            this.warmStart = warmStart;
 
-            System.arraycopy(
-                deviceStatusChunk,
-                0,
-                paddedDeviceStatusChunk,
-                0,
-                deviceStatusChunk.length
-            );
+            encodeNanos = encoded - start;
+            restartNanos = restarted - encoded;
+            verifyNanos = verified - restarted;
+            configureNanos = configured - verified;
+            totalNanos = configured - start;
+        }
+    }
 
-            deviceStatus = ByteBuffer
-                .wrap(paddedDeviceStatusChunk)
-                .order(BYTE_ORDER)
-                .getShort();
+    /**
+     * a fixed-capacity ring of the encoder positions and Pinpoint poses decoded from the most recent frames, each stamped with the frame's
+     * estimated sample time, for looking up where the robot was when, for example, a camera frame was captured; recording and lookups do not
+     * allocate, and lookups may be made from any thread, retrying if update records a frame meanwhile
+     */
+    public static class History {
+        private final SRSHub hub;
 
-            index += 8;
+        private final long[] timestamps;
 
-            byte[] xPositionChunk = data
-                .get(
-                    index,
-                    index + 32
-                )
-                .toByteArray();
+        private final Encoder[] encoders;
+        private final long[] encoderPositions;
 
-            byte[] paddedXPositionChunk = new byte[4];
+        private final GoBildaPinpoint[] pinpoints;
+        private final double[] poses;
 
-            System.arraycopy(
-                xPositionChunk,
-                0,
-                paddedXPositionChunk,
-                0,
-                xPositionChunk.length
-            );
+        // the sample time of the frame each recorded pose was decoded from, which trails the frame's own when the Pinpoint has an update divisor
+        private final long[] poseTimestamps;
 
-            xPosition = ByteBuffer
-                .wrap(paddedXPositionChunk)
-                .order(BYTE_ORDER)
-                .getFloat();
+        private int newest = -1;
+        private int size = 0;
 
-            index += 32;
+        History(SRSHub hub, int capacity, Encoder[] encoders, GoBildaPinpoint[] pinpoints) {
+            this.hub = hub;
 
-            byte[] yPositionChunk = data
-                .get(
-                    index,
-                    index + 32
-                )
-                .toByteArray();
+            timestamps = new long[capacity];
 
-            byte[] paddedYPositionChunk = new byte[4];
+            this.encoders = encoders;
+            encoderPositions = new long[capacity * encoders.length];
 
-            System.arraycopy(
-                yPositionChunk,
-                0,
-                paddedYPositionChunk,
-                0,
-                yPositionChunk.length
-            );
+            this.pinpoints = pinpoints;
+            poses = new double[capacity * pinpoints.length * 3];
+            poseTimestamps = new long[capacity * pinpoints.length];
+        }
 
-            yPosition = ByteBuffer
-                .wrap(paddedYPositionChunk)
-                .order(BYTE_ORDER)
-                .getFloat();
+        /**
+         * called by update while it holds the hub's state lock
+         */
+        void record(long timestamp, long[] positions) {
+            if (size > 0 && timestamp < timestamps[newest]) {
+                return;
+            }
 
-            index += 32;
+            if (++newest == timestamps.length) {
+                newest = 0;
+            }
 
-            byte[] hOrientationChunk = data
-                .get(
-                    index,
-                    index + 32
-                )
-                .toByteArray();
+            size = Math.min(
+                size + 1,
+                timestamps.length
+            );
 
-            byte[] paddedHOrientationChunk = new byte[4];
+            timestamps[newest] = timestamp;
 
             System.arraycopy(
-                hOrientationChunk,
-                0,
-                paddedHOrientationChunk,
+                positions,
                 0,
-                hOrientationChunk.length
+                encoderPositions,
+                newest * encoders.length,
+                encoders.length
             );
 
-            hOrientation = ByteBuffer
-                .wrap(paddedHOrientationChunk)
-                .order(BYTE_ORDER)
-                .getFloat();
+            for (int i = 0; i < pinpoints.length; i++) {
+                int sample = newest * pinpoints.length + i;
 
-            index += 32;
+                poseTimestamps[sample] = pinpoints[i].decodedSampleTimestamp;
 
-            byte[] xVelocityChunk = data
-                .get(
-                    index,
-                    index + 32
-                )
-                .toByteArray();
+                poses[sample * 3] = pinpoints[i].xPosition;
+                poses[sample * 3 + 1] = pinpoints[i].yPosition;
+                poses[sample * 3 + 2] = pinpoints[i].hOrientation;
+            }
+        }
 
-            byte[] paddedXVelocityChunk = new byte[4];
+        /**
+         * finds the last sample taken at or before a time by binary search over one column of sample times; a time before the oldest sample
+         * gives the oldest
+         *
+         * @param times the sample times, stride entries per sample
+         * @param column the entry of each sample's times to search
+         */
+        private int locate(long nanos, int newest, int size, long[] times, int stride, int column) {
+            int oldest = newest - size + 1;
 
-            System.arraycopy(
-                xVelocityChunk,
-                0,
-                paddedXVelocityChunk,
-                0,
-                xVelocityChunk.length
-            );
+            if (oldest < 0) {
+                oldest += timestamps.length;
+            }
 
-            xVelocity = ByteBuffer
-                .wrap(paddedXVelocityChunk)
-                .order(BYTE_ORDER)
-                .getFloat();
+            // the number of samples taken at or before the time
+            int low = 0;
+            int high = size;
 
-            index += 32;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
 
-            byte[] yVelocityChunk = data
-                .get(
-                    index,
-                    index + 32
-                )
-                .toByteArray();
+                int sample = oldest + middle;
 
-            byte[] paddedYVelocityChunk = new byte[4];
+                if (sample >= timestamps.length) {
+                    sample -= timestamps.length;
+                }
 
-            System.arraycopy(
-                yVelocityChunk,
-                0,
-                paddedYVelocityChunk,
-                0,
-                yVelocityChunk.length
+                if (times[sample * stride + column] <= nanos) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+
+            int lower = oldest + Math.max(
+                low - 1,
+                0
             );
 
-            yVelocity = ByteBuffer
-                .wrap(paddedYVelocityChunk)
-                .order(BYTE_ORDER)
-                .getFloat();
+            return lower >= timestamps.length ? lower - timestamps.length : lower;
+        }
 
-            index += 32;
+        /**
+         * @return the sample after the given one, or the given one if it is the newest
+         */
+        private int next(int sample, int newest) {
+            if (sample == newest) {
+                return sample;
+            }
 
-            byte[] hVelocityChunk = data
-                .get(
-                    index,
-                    index + 32
-                )
-                .toByteArray();
+            return sample + 1 == timestamps.length ? 0 : sample + 1;
+        }
 
-            byte[] paddedHVelocityChunk = new byte[4];
+        /**
+         * @return how far between the times of two samples the given time lies, from 0 to 1
+         */
+        private static double fraction(long nanos, long from, long to) {
+            if (to <= from || nanos <= from) {
+                return 0;
+            }
 
-            System.arraycopy(
-                hVelocityChunk,
-                0,
-                paddedHVelocityChunk,
-                0,
-                hVelocityChunk.length
+            return Math.min(
+                (nanos - from) / (double) (to - from),
+                1
             );
-
-            hVelocity = ByteBuffer
-                .wrap(paddedHVelocityChunk)
-                .order(BYTE_ORDER)
-                .getFloat();
         }
-    }
 
-    public static class Config {
-        private boolean locked = false;
-
-        protected final AnalogDigitalDevice[] analogDigitalDevices =
-            new AnalogDigitalDevice[12];
+        private void checkRecorded(int size) {
+            if (size == 0) {
+                throwException(
+                    IllegalStateException.class,
+                    "The SRSHub history has no " +
+                        "samples yet"
+                );
+            }
+        }
 
-        protected final Encoder[] encoders = new Encoder[6];
+        /**
+         * @param port the port being looked up, from 1 to 6
+         * @param nanos a {@link System#nanoTime()} timestamp
+         *
+         * @return the encoder's position at the given time, linearly interpolated between the frames sampled on either side of it; times
+         *     before the oldest or after the newest frame give that frame's position
+         *
+         * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
+         * @throws IllegalStateException if the port was not configured
+         * @throws IllegalStateException if no frames have been recorded
+         */
+        public double getEncoderAt(int port, long nanos) {
+            if (port < 1 || port > encoders.length) {
+                throwException(
+                    IndexOutOfBoundsException.class,
+                    "Encoder port " +
+                        "must be from 1 to 6"
+                );
+            }
 
-        protected final ArrayList<I2CDevice>[] i2cBuses = new ArrayList[]{
-            new ArrayList<I2CDevice>(),
-            new ArrayList<I2CDevice>(),
-            new ArrayList<I2CDevice>()
-        };
+            if (encoders[port - 1] == Encoder.NONE) {
+                throwException(
+                    IllegalStateException.class,
+                    "Encoder port #" + port +
+                        " was not configured"
+                );
+            }
 
-        public Config() {
-            Arrays.fill(
-                analogDigitalDevices,
-                AnalogDigitalDevice.NONE
-            );
+            while (true) {
+                long stamp = hub.beginRead();
 
-            Arrays.fill(
-                encoders,
-                Encoder.NONE
-            );
+                int newest = this.newest;
+                int size = this.size;
+
+                // the ring's bounds must be consistent before they are used as indices
+                if (!hub.validate(stamp)) {
+                    continue;
+                }
+
+                checkRecorded(size);
+
+                int lower = locate(
+                    nanos,
+                    newest,
+                    size,
+                    timestamps,
+                    1,
+                    0
+                );
+
+                int upper = next(
+                    lower,
+                    newest
+                );
+
+                double fraction = fraction(
+                    nanos,
+                    timestamps[lower],
+                    timestamps[upper]
+                );
+
+                long from = encoderPositions[lower * encoders.length + port - 1];
+                long to = encoderPositions[upper * encoders.length + port - 1];
+
+                if (hub.validate(stamp)) {
+                    return from + (to - from) * fraction;
+                }
+
+                Thread.yield();
+            }
         }
 
         /**
-         * configures an analog-digital pin to be analog, digital, or none
+         * copies the pose of the configuration's only Pinpoint at the given time into a caller-owned object
          *
-         * @param pin the pin being configured, from 1 to 12
-         * @param device the type of device on the pin
+         * @see #getPoseAt(GoBildaPinpoint, long, Pose)
          *
-         * @throws IndexOutOfBoundsException if the pin is not between 1 and 12, inclusive
-         * @throws IllegalStateException if init has already been called
+         * @throws IllegalStateException if the configuration does not have exactly one Pinpoint
          */
-        public void setAnalogDigitalDevice(
-            int pin,
-            AnalogDigitalDevice device
-        ) {
-            if (pin < 1 || pin > 12) {
+        public Pose getPoseAt(long nanos, Pose pose) {
+            if (pinpoints.length != 1) {
                 throwException(
-                    IndexOutOfBoundsException.class,
-                    "AnalogDigitalDevice pin " +
-                        "must be from 1 to 12"
+                    IllegalStateException.class,
+                    "The configuration has " + pinpoints.length +
+                        " Pinpoints; specify which one to look up"
                 );
             }
 
-            if (locked) {
+            return getPoseAt(
+                pinpoints[0],
+                nanos,
+                pose
+            );
+        }
+
+        /**
+         * copies a Pinpoint's pose at the given time into a caller-owned object, linearly interpolated between the poses decoded on either
+         * side of it, with the heading taken the short way around; times before the oldest or after the newest pose give that pose; a
+         * Pinpoint with an update divisor is interpolated between the frames it was decoded from, not those it was skipped in
+         *
+         * @param pinpoint the Pinpoint being looked up, as added to the configuration
+         * @param nanos a {@link System#nanoTime()} timestamp
+         * @param pose the object receiving the pose, in the Pinpoint's units
+         *
+         * @return pose
+         *
+         * @throws IllegalArgumentException if the Pinpoint is not part of the configuration
+         * @throws IllegalStateException if no frames have been recorded
+         */
+        public Pose getPoseAt(GoBildaPinpoint pinpoint, long nanos, Pose pose) {
+            int index = -1;
+
+            for (int i = 0; i < pinpoints.length; i++) {
+                if (pinpoints[i] == pinpoint) {
+                    index = i;
+                }
+            }
+
+            if (index == -1) {
                 throwException(
-                    IllegalStateException.class,
-                    "Config has already been " +
-                        "passed to the SRSHub; changes cannot be made"
+                    IllegalArgumentException.class,
+                    "The Pinpoint is not part " +
+                        "of the SRSHub's configuration"
                 );
             }
 
-            analogDigitalDevices[pin - 1] = device;
+            while (true) {
+                long stamp = hub.beginRead();
+
+                int newest = this.newest;
+                int size = this.size;
+
+                if (!hub.validate(stamp)) {
+                    continue;
+                }
+
+                checkRecorded(size);
+
+                int lower = locate(
+                    nanos,
+                    newest,
+                    size,
+                    poseTimestamps,
+                    pinpoints.length,
+                    index
+                );
+
+                int upper = next(
+                    lower,
+                    newest
+                );
+
+                int from = lower * pinpoints.length + index;
+                int to = upper * pinpoints.length + index;
+
+                double fraction = fraction(
+                    nanos,
+                    poseTimestamps[from],
+                    poseTimestamps[to]
+                );
+
+                double turn = poses[to * 3 + 2] - poses[from * 3 + 2];
+
+                turn -= 2 * Math.PI * Math.floor((turn + Math.PI) / (2 * Math.PI));
+
+                double x = poses[from * 3] + (poses[to * 3] - poses[from * 3]) * fraction;
+                double y = poses[from * 3 + 1] + (poses[to * 3 + 1] - poses[from * 3 + 1]) * fraction;
+                double heading = poses[from * 3 + 2] + turn * fraction;
+
+                // keeps the heading within (-pi, pi], as a turn across pi leaves it outside
+                heading -= 2 * Math.PI * Math.ceil((heading - Math.PI) / (2 * Math.PI));
+
+                if (hub.validate(stamp)) {
+                    pose.x = x;
+                    pose.y = y;
+                    pose.heading = heading;
+
+                    return pose;
+                }
+
+                Thread.yield();
+            }
         }
 
         /**
-         * configures an encoder port to be quadrature, pwm, or none
+         * @return the number of frames held, at most the capacity set in the configuration
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the estimated sample time of the oldest frame held
          *
-         * @param port the port being configured, from 1 to 6
-         * @param device the type of device on the port
+         * @throws IllegalStateException if no frames have been recorded
+         */
+        public long getOldestTimestamp() {
+            return getTimestamp(true);
+        }
+
+        /**
+         * @return the estimated sample time of the newest frame held
          *
-         * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
-         * @throws IllegalStateException if init has already been called
+         * @throws IllegalStateException if no frames have been recorded
          */
-        public void setEncoder(int port, Encoder device) {
-            if (port < 1 || port > 6) {
-                throwException(
-                    IndexOutOfBoundsException.class,
-                    "Encoder port must " +
-                        "be from 1 to 6"
+        public long getNewestTimestamp() {
+            return getTimestamp(false);
+        }
+
+        private long getTimestamp(boolean oldest) {
+            while (true) {
+                long stamp = hub.beginRead();
+
+                int newest = this.newest;
+                int size = this.size;
+
+                if (!hub.validate(stamp)) {
+                    continue;
+                }
+
+                checkRecorded(size);
+
+                int sample = oldest ? newest - size + 1 : newest;
+
+                long timestamp = timestamps[sample < 0 ? sample + timestamps.length : sample];
+
+                if (hub.validate(stamp)) {
+                    return timestamp;
+                }
+
+                Thread.yield();
+            }
+        }
+
+        /**
+         * discards every frame held
+         */
+        public void clear() {
+            long stamp = hub.stateLock.writeLock();
+
+            newest = -1;
+            size = 0;
+
+            hub.stateLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * queued commands with a copy of each one's payload taken when it was queued, so that a reusable command rewritten afterwards is sent
+     * whole as it was queued; each slot's copy is reused while the payloads queued in it keep the same length
+     */
+    private static class CommandQueue {
+        private final ArrayList<Command> commands = new ArrayList<>();
+
+        private byte[][] payloads = new byte[4][];
+
+        int size() {
+            return commands.size();
+        }
+
+        Command get(int index) {
+            return commands.get(index);
+        }
+
+        byte[] getPayload(int index) {
+            return payloads[index];
+        }
+
+        void add(Command command) {
+            byte[] bytes = command.toBytes();
+
+            int slot = commands.size();
+
+            if (slot == payloads.length) {
+                payloads = Arrays.copyOf(
+                    payloads,
+                    slot * 2
                 );
             }
 
-            if (locked) {
+            if (payloads[slot] == null || payloads[slot].length != bytes.length) {
+                payloads[slot] = new byte[bytes.length];
+            }
+
+            System.arraycopy(
+                bytes,
+                0,
+                payloads[slot],
+                0,
+                bytes.length
+            );
+
+            commands.add(command);
+        }
+
+        void remove(int index) {
+            // the removed slot's copy moves to the end, where it can be reused
+            byte[] payload = payloads[index];
+
+            System.arraycopy(
+                payloads,
+                index + 1,
+                payloads,
+                index,
+                commands.size() - index - 1
+            );
+
+            payloads[commands.size() - 1] = payload;
+
+            commands.remove(index);
+        }
+
+        void clear() {
+            commands.clear();
+        }
+
+        boolean isEmpty() {
+            return commands.isEmpty();
+        }
+    }
+
+    private static class Frame {
+        final byte[] data = new byte[MAX_UPDATE_LENGTH];
+
+        // quadrature positions accumulated by the poller over every frame it read, including those update never decoded
+        final long[] encoderPositions = new long[6];
+
+        // the dead wheel odometry's state as integrated by the poller up to this frame
+        final double[] odometry = new double[6];
+
+        boolean disconnected;
+        boolean retried;
+
+        long sequence;
+        long timestamp;
+        long sampleTimestamp;
+    }
+
+    /**
+     * a pre-resolved reader for one configured analog-digital pin, returned by {@link Config#setAnalogDigitalDevice}; it reads the decoded value
+     * directly, without any lookup or validation, and must not be read before the configuration is passed to init
+     */
+    public static class AnalogDigitalHandle {
+        private final int index;
+
+        private SRSHub hub;
+
+        AnalogDigitalHandle(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @return the current value read from the pin; from 0 to 1 for analog devices and 0 or 1 for digital devices
+         */
+        public double getValue() {
+            return hub.analogDigitalValues[index];
+        }
+    }
+
+    /**
+     * a pre-resolved reader for one configured encoder port, returned by {@link Config#setEncoder}; it reads the decoded state directly,
+     * without any lookup or validation, and must not be read before the configuration is passed to init
+     */
+    public static class EncoderHandle {
+        private final int index;
+
+        private SRSHub hub;
+
+        EncoderHandle(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @return the current position of the encoder; in ticks for quadrature encoders and pulse width in microseconds for PWM encoders
+         */
+        public long getPosition() {
+            return hub.encoderPositions[index];
+        }
+
+        /**
+         * @return the current velocity of the encoder; in ticks per second for quadrature encoders and microseconds per second for PWM
+         *     encoders
+         */
+        public int getVelocity() {
+            return hub.encoderVelocities[index];
+        }
+    }
+
+    /**
+     * tracks the robot's pose from three dead wheels on the SRSHub's quadrature ports: two parallel wheels either side of the tracking center
+     * and one perpendicular wheel; every decoded frame is integrated, including each frame read by the polling thread, with the exact arc
+     * between frames (the SE(2) pose exponential) rather than a straight line; integration does not allocate; poses are in the units of the
+     * distance per tick, with x forward, y to the left, and heading counterclockwise in radians
+     */
+    public static class DeadWheelOdometry {
+        // the indices into a pose or velocity
+        private static final int X = 0;
+        private static final int Y = 1;
+        private static final int HEADING = 2;
+        private static final int X_VELOCITY = 3;
+        private static final int Y_VELOCITY = 4;
+        private static final int HEADING_VELOCITY = 5;
+
+        // ports, from 0
+        private final int left;
+        private final int right;
+        private final int perpendicular;
+
+        private final double distancePerTick;
+        private final double trackWidth;
+        private final double perpendicularOffset;
+
+        private final double[] directions = new double[]{
+            1,
+            1,
+            1,
+            1,
+            1,
+            1
+        };
+
+        private SRSHub hub;
+
+        // the pose and robot-relative velocity as integrated by whichever thread is reading frames, and the positions they were integrated to
+        final double[] state = new double[6];
+
+        private boolean started = false;
+
+        private long lastLeft;
+        private long lastRight;
+        private long lastPerpendicular;
+
+        // the pose and velocity as of the frame most recently decoded by update, only written while the SRSHub's state lock is held
+        private final double[] published = new double[6];
+
+        private boolean poseRequested = false;
+        private final double[] requestedPose = new double[3];
+
+        /**
+         * @param leftPort the port of the parallel wheel left of the tracking center, from 1 to 6
+         * @param rightPort the port of the parallel wheel right of the tracking center, from 1 to 6
+         * @param perpendicularPort the port of the perpendicular wheel, from 1 to 6
+         * @param distancePerTick the distance each wheel travels per encoder tick
+         * @param trackWidth the distance between the parallel wheels
+         * @param perpendicularOffset how far forward of the tracking center the perpendicular wheel is; negative if it is behind
+         *
+         * @throws IndexOutOfBoundsException if a port is not between 1 and 6, inclusive
+         * @throws IllegalArgumentException if two wheels share a port
+         */
+        public DeadWheelOdometry(
+            int leftPort,
+            int rightPort,
+            int perpendicularPort,
+            double distancePerTick,
+            double trackWidth,
+            double perpendicularOffset
+        ) {
+            for (int port : new int[]{leftPort, rightPort, perpendicularPort}) {
+                if (port < 1 || port > 6) {
+                    throwException(
+                        IndexOutOfBoundsException.class,
+                        "Encoder port " +
+                            "must be from 1 to 6"
+                    );
+                }
+            }
+
+            if (leftPort == rightPort || leftPort == perpendicularPort || rightPort == perpendicularPort) {
                 throwException(
-                    IllegalStateException.class,
-                    "Config has already been " +
-                        "passed to the SRSHub; changes cannot be made"
+                    IllegalArgumentException.class,
+                    "Each dead wheel must " +
+                        "have its own encoder port"
                 );
             }
 
-            encoders[port - 1] = device;
+            left = leftPort - 1;
+            right = rightPort - 1;
+            perpendicular = perpendicularPort - 1;
+
+            this.distancePerTick = distancePerTick;
+            this.trackWidth = trackWidth;
+            this.perpendicularOffset = perpendicularOffset;
         }
 
         /**
-         * adds a device to an I2C bus
-         *
-         * @param bus the bus to which the device is being added, from 1 to 3
-         * @param device the (unique) type of the device on the bus
+         * sets whether a wheel's encoder counts down as the wheel rolls forward, or, for the perpendicular wheel, to the left
          *
-         * @throws IndexOutOfBoundsException if the bus is not between 1 and 3, inclusive
-         * @throws IllegalStateException if init has already been called or if a device of the same I2C address has been configured on the bus
+         * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
          */
-        public void addI2CDevice(int bus, I2CDevice device) {
-            if (bus < 1 || bus > 3) {
+        public DeadWheelOdometry setReversed(int port, boolean reversed) {
+            if (port < 1 || port > 6) {
                 throwException(
                     IndexOutOfBoundsException.class,
-                    "I2C bus must be from 1 to" +
-                        " 3"
+                    "Encoder port " +
+                        "must be from 1 to 6"
                 );
             }
 
-            if (locked) {
+            directions[port - 1] = reversed ? -1 : 1;
+
+            return this;
+        }
+
+        /**
+         * moves the tracked pose, as of the next frame decoded; the velocity is unaffected
+         */
+        public void setPose(double x, double y, double heading) {
+            synchronized (requestedPose) {
+                requestedPose[X] = x;
+                requestedPose[Y] = y;
+                requestedPose[HEADING] = heading;
+
+                poseRequested = true;
+            }
+        }
+
+        /**
+         * copies the pose as of the frame most recently decoded by update into a caller-owned object; safe to call from any thread
+         *
+         * @return pose
+         */
+        public Pose getPose(Pose pose) {
+            return read(
+                X,
+                pose
+            );
+        }
+
+        /**
+         * copies the robot-relative velocity as of the frame most recently decoded by update into a caller-owned object, in distance and
+         * radians per second, from the wheel velocities measured by the SRSHub; safe to call from any thread
+         *
+         * @return velocity
+         */
+        public Pose getVelocity(Pose velocity) {
+            return read(
+                X_VELOCITY,
+                velocity
+            );
+        }
+
+        private Pose read(int first, Pose pose) {
+            if (hub == null) {
                 throwException(
                     IllegalStateException.class,
-                    "Config has already been " +
-                        "passed to the SRSHub; changes cannot be made"
+                    "The SRSHub must be initialized " +
+                        "before reading"
                 );
             }
 
-            for (I2CDevice i2cDevice : i2cBuses[bus - 1]) {
-                if (i2cDevice.getClass() == device.getClass()) {
-                    throwException(
-                        IllegalStateException.class,
-                        "I2C Bus #" + bus + " " +
-                            "already has a device of type " + device
-                            .getClass()
+            while (true) {
+                long stamp = hub.beginRead();
+
+                pose.x = published[first];
+                pose.y = published[first + 1];
+                pose.heading = published[first + 2];
+
+                if (hub.validate(stamp)) {
+                    return pose;
+                }
+
+                Thread.yield();
+            }
+        }
+
+        /**
+         * forgets the positions integrated so far, so that the next frame only sets the starting positions; the pose is kept
+         */
+        void restart() {
+            started = false;
+        }
+
+        void integrate(long[] positions, int[] velocities) {
+            synchronized (requestedPose) {
+                if (poseRequested) {
+                    state[X] = requestedPose[X];
+                    state[Y] = requestedPose[Y];
+                    state[HEADING] = requestedPose[HEADING];
+
+                    poseRequested = false;
+                }
+            }
+
+            double leftDistance = (positions[left] - lastLeft) * directions[left] * distancePerTick;
+            double rightDistance = (positions[right] - lastRight) * directions[right] * distancePerTick;
+            double perpendicularDistance = (positions[perpendicular] - lastPerpendicular) * directions[perpendicular] * distancePerTick;
+
+            lastLeft = positions[left];
+            lastRight = positions[right];
+            lastPerpendicular = positions[perpendicular];
+
+            if (started) {
+                // the robot-relative twist since the previous frame
+                double turn = (rightDistance - leftDistance) / trackWidth;
+                double forward = (leftDistance + rightDistance) / 2;
+                double strafe = perpendicularDistance - perpendicularOffset * turn;
+
+                // sin(turn) / turn and (1 - cos(turn)) / turn, by their Taylor series near 0
+                double sine;
+                double cosine;
+
+                if (Math.abs(turn) < 1e-6) {
+                    sine = 1 - turn * turn / 6;
+                    cosine = turn / 2;
+                }
+                else {
+                    sine = Math.sin(turn) / turn;
+                    cosine = (1 - Math.cos(turn)) / turn;
+                }
+
+                double dx = forward * sine - strafe * cosine;
+                double dy = forward * cosine + strafe * sine;
+
+                double heading = state[HEADING];
+
+                double headingSine = Math.sin(heading);
+                double headingCosine = Math.cos(heading);
+
+                state[X] += dx * headingCosine - dy * headingSine;
+                state[Y] += dx * headingSine + dy * headingCosine;
+
+                heading += turn;
+
+                // keeps the heading within (-pi, pi]
+                state[HEADING] = heading - 2 * Math.PI * Math.ceil((heading - Math.PI) / (2 * Math.PI));
+            }
+
+            started = true;
+
+            double leftVelocity = velocities[left] * directions[left] * distancePerTick;
+            double rightVelocity = velocities[right] * directions[right] * distancePerTick;
+            double perpendicularVelocity = velocities[perpendicular] * directions[perpendicular] * distancePerTick;
+
+            state[HEADING_VELOCITY] = (rightVelocity - leftVelocity) / trackWidth;
+            state[X_VELOCITY] = (leftVelocity + rightVelocity) / 2;
+            state[Y_VELOCITY] = perpendicularVelocity - perpendicularOffset * state[HEADING_VELOCITY];
+        }
+
+        void publish(double[] state) {
+            System.arraycopy(
+                state,
+                0,
+                published,
+                0,
+                published.length
+            );
+        }
+    }
+
+    /**
+     * estimates an encoder's velocity on the host from its positions and the estimated sample times of the frames they were decoded from, in
+     * double precision, for smoother low-speed velocities than the whole ticks per second measured by the SRSHub; estimating does not
+     * allocate
+     */
+    public static class VelocityEstimator {
+        public enum Method {
+            /**
+             * the change in position across the window divided by the time it spans; responsive, but quantized to one tick per window
+             */
+            FINITE_DIFFERENCE,
+            /**
+             * the least-squares slope of position against time over the window; smoother than a finite difference over the same window, at
+             * the cost of lagging by about half of it
+             */
+            REGRESSION
+        }
+
+        private final Method method;
+
+        private final long[] timestamps;
+        private final long[] positions;
+
+        private int newest = -1;
+        private int size = 0;
+
+        private SRSHub hub;
+
+        // only written while the SRSHub's state lock is held
+        private double velocity = 0;
+
+        /**
+         * @param method how the velocity is estimated from the positions in the window
+         * @param window the number of most recent frames the estimate spans, at least 2
+         *
+         * @throws IllegalArgumentException if the window is less than 2
+         */
+        public VelocityEstimator(Method method, int window) {
+            if (window < 2) {
+                throwException(
+                    IllegalArgumentException.class,
+                    "Velocity estimator window " +
+                        "must be at least 2 frames"
+                );
+            }
+
+            this.method = method;
+
+            timestamps = new long[window];
+            positions = new long[window];
+        }
+
+        /**
+         * @return the estimated velocity as of the frame most recently decoded by update, in position units per second, or 0 before two
+         *     frames have been decoded; safe to call from any thread
+         */
+        public double getVelocity() {
+            if (hub == null) {
+                throwException(
+                    IllegalStateException.class,
+                    "The SRSHub must be initialized " +
+                        "before reading"
+                );
+            }
+
+            while (true) {
+                long stamp = hub.beginRead();
+
+                double velocity = this.velocity;
+
+                if (hub.validate(stamp)) {
+                    return velocity;
+                }
+
+                Thread.yield();
+            }
+        }
+
+        void restart() {
+            newest = -1;
+            size = 0;
+
+            velocity = 0;
+        }
+
+        void add(long timestamp, long position) {
+            if (size > 0 && timestamp <= timestamps[newest]) {
+                return;
+            }
+
+            if (++newest == timestamps.length) {
+                newest = 0;
+            }
+
+            size = Math.min(
+                size + 1,
+                timestamps.length
+            );
+
+            timestamps[newest] = timestamp;
+            positions[newest] = position;
+
+            if (size < 2) {
+                return;
+            }
+
+            int oldest = newest - size + 1;
+
+            if (oldest < 0) {
+                oldest += timestamps.length;
+            }
+
+            switch (method) {
+                case FINITE_DIFFERENCE:
+                    velocity = (positions[newest] - positions[oldest]) * 1e9 / (timestamps[newest] - timestamps[oldest]);
+
+                    break;
+                case REGRESSION:
+                    // times and positions are taken relative to the newest sample, so that the sums keep their precision
+                    double timeSum = 0;
+                    double positionSum = 0;
+
+                    for (int i = 0; i < size; i++) {
+                        timeSum += (timestamps[i] - timestamps[newest]) / 1e9;
+                        positionSum += positions[i] - positions[newest];
+                    }
+
+                    double timeMean = timeSum / size;
+                    double positionMean = positionSum / size;
+
+                    double covariance = 0;
+                    double variance = 0;
+
+                    for (int i = 0; i < size; i++) {
+                        double time = (timestamps[i] - timestamps[newest]) / 1e9 - timeMean;
+
+                        covariance += time * (positions[i] - positions[newest] - positionMean);
+                        variance += time * time;
+                    }
+
+                    velocity = covariance / variance;
+
+                    break;
+            }
+        }
+    }
+
+    public static abstract class Command {
+        protected abstract int getLength();
+
+        protected abstract BitSet getData();
+
+        /**
+         * @return the COMMAND register payload
+         */
+        protected byte[] toBytes() {
+            byte[] data = new byte[(getLength() + 7) / 8];
+
+            byte[] bits = getData().toByteArray();
+
+            System.arraycopy(
+                bits,
+                0,
+                data,
+                0,
+                bits.length
+            );
+
+            return data;
+        }
+
+        /**
+         * @param queued a command still waiting in the queue
+         * @param queuedPayload the queued command's payload as it was copied when queued, which a reusable command may since have been
+         *     rewritten away from
+         *
+         * @return whether this command makes the queued one redundant, so that only this one is sent; by default, a command replaces a queued
+         *     command of the same type for the same bus and device
+         */
+        protected boolean replaces(Command queued, byte[] queuedPayload) {
+            // the first byte holds the 2 bus bits and the device ID
+            int target = (1 << 2 + BITS_PER_I2C_DEVICE) - 1;
+
+            return queued.getClass() == getClass() && (queuedPayload[0] & target) == (toBytes()[0] & target);
+        }
+    }
+
+    /**
+     * a reusable command whose bits are written straight into a preallocated COMMAND payload, for commands sent often enough that building a
+     * new one each time matters; fields are written in order from a cursor, and can be rewritten in place after seeking back to them;
+     * {@link SRSHub#queueCommand(Command)} copies the payload, so the command can be rewritten as soon as it returns, but it must not be
+     * rewritten from another thread during {@link SRSHub#runCommand(Command)} or queueCommand
+     */
+    public static class CommandBuffer extends Command {
+        private final int length;
+        private final byte[] data;
+
+        private int index = 0;
+
+        /**
+         * @param length the number of bits in the command
+         */
+        public CommandBuffer(int length) {
+            this.length = length;
+
+            data = new byte[(length + 7) / 8];
+        }
+
+        /**
+         * moves the cursor to a bit, so that the fields after it can be rewritten
+         *
+         * @throws IndexOutOfBoundsException if the bit is not within the command
+         */
+        public CommandBuffer seek(int index) {
+            if (index < 0 || index > length) {
+                throwException(
+                    IndexOutOfBoundsException.class,
+                    "Command bit " + index +
+                        " is outside the command's " + length + " bits"
+                );
+            }
+
+            this.index = index;
+
+            return this;
+        }
+
+        /**
+         * writes the header every command begins with: the target's bus, its device ID, and the command's ID for that device
+         */
+        public CommandBuffer writeHeader(int bus, int deviceID, int commandID) {
+            return seek(0).writeBits(
+                bus,
+                2
+            ).writeBits(
+                deviceID,
+                BITS_PER_I2C_DEVICE
+            ).writeBits(
+                commandID,
+                4
+            );
+        }
+
+        /**
+         * writes a field least significant bit first, as the SRSHub reads IDs and flags
+         *
+         * @param width the number of bits in the field, from 0 to 64
+         *
+         * @throws IndexOutOfBoundsException if the field would run past the end of the command
+         */
+        public CommandBuffer writeBits(long value, int width) {
+            if (index + width > length) {
+                throwException(
+                    IndexOutOfBoundsException.class,
+                    "Command field of " + width +
+                        " bits at bit " + index + " would run past the command's " + length + " bits"
+                );
+            }
+
+            // each pass fills what remains of the byte under the cursor
+            while (width > 0) {
+                int shift = index & 7;
+                int bits = Math.min(
+                    8 - shift,
+                    width
+                );
+
+                int mask = ((1 << bits) - 1) << shift;
+
+                data[index >>> 3] = (byte) (data[index >>> 3] & ~mask | (int) value << shift & mask);
+
+                value >>>= bits;
+                index += bits;
+                width -= bits;
+            }
+
+            return this;
+        }
+
+        /**
+         * writes a field most significant bit first, as the SRSHub reads command payloads
+         *
+         * @param width the number of bits in the field, from 1 to 64
+         *
+         * @throws IndexOutOfBoundsException if the field would run past the end of the command
+         */
+        public CommandBuffer writeBitsMSBFirst(long value, int width) {
+            return writeBits(
+                Long.reverse(value) >>> 64 - width,
+                width
+            );
+        }
+
+        /**
+         * writes an IEEE 754 float, most significant bit first
+         *
+         * @throws IndexOutOfBoundsException if the field would run past the end of the command
+         */
+        public CommandBuffer writeFloat(float value) {
+            return writeBitsMSBFirst(
+                Float.floatToRawIntBits(value),
+                32
+            );
+        }
+
+        protected int getLength() {
+            return length;
+        }
+
+        protected BitSet getData() {
+            return BitSet.valueOf(data);
+        }
+
+        protected byte[] toBytes() {
+            return data;
+        }
+
+        /**
+         * @return whether this command makes an earlier one still waiting in the queue redundant; a buffer replaces a queued command of the
+         *     same type whose header has the same bus, device ID and command ID
+         */
+        protected boolean replaces(Command queued, byte[] queuedPayload) {
+            return super.replaces(
+                queued,
+                queuedPayload
+            ) && readHeader(queuedPayload) == readHeader(data);
+        }
+
+        /**
+         * @return the first 10 bits, which hold the 2 bus bits, the device ID and the command ID
+         */
+        private static int readHeader(byte[] data) {
+            int header = data[0] & 0xFF;
+
+            if (data.length > 1) {
+                header |= (data[1] & 0xFF) << 8;
+            }
+
+            return header & (1 << 2 + BITS_PER_I2C_DEVICE + 4) - 1;
+        }
+    }
+
+    public static abstract class I2CDevice {
+        int updateDivisor = 1;
+
+        // the estimated sample time of the frame the device's values were last decoded from
+        long decodedSampleTimestamp = 0;
+
+        protected abstract int getValue();
+
+        protected abstract int getInitLength();
+
+        protected abstract int getUpdateLength();
+
+        protected abstract int getAddress();
+
+        protected abstract BitSet getConfig();
+
+        protected abstract void parseUpdate(BitReader data, int start);
+    }
+
+    /**
+     * the layout of an I2C device's update, declared one field at a time in the order the SRSHub sends them; the update length and the
+     * decoder are derived from it
+     */
+    public static class Schema {
+        public enum Type {
+            BOOLEAN,
+            UNSIGNED,
+            SIGNED,
+            FLOAT
+        }
+
+        private final ArrayList<String> names = new ArrayList<>();
+
+        // the first slot of each named field
+        private final ArrayList<Integer> firstSlots = new ArrayList<>();
+
+        // each slot holds one value, so an array field takes one slot per element
+        private int[] offsets = new int[0];
+        private int[] widths = new int[0];
+        private int[] shifts = new int[0];
+
+        private int length = 0;
+
+        /**
+         * declares a single-valued field
+         *
+         * @see #field(String, Type, int, int)
+         */
+        public Schema field(String name, Type type, int width) {
+            return field(
+                name,
+                type,
+                width,
+                1
+            );
+        }
+
+        /**
+         * declares a field following those already declared
+         *
+         * @param name the field's name, for {@link #slot(String)}
+         * @param type how the field's bits are interpreted; booleans are 1 bit wide and floats 32
+         * @param width the number of bits in each value, from 1 to 64
+         * @param count the number of values in the field, which are read one after another
+         *
+         * @return this schema
+         *
+         * @throws IllegalArgumentException if the name is already declared, the width does not suit the type, or the count is not positive
+         */
+        public Schema field(String name, Type type, int width, int count) {
+            if (names.contains(name)) {
+                throwException(
+                    IllegalArgumentException.class,
+                    "Schema field " + name +
+                        " is already declared"
+                );
+            }
+
+            if (width < 1 || width > 64 || type == Type.BOOLEAN && width != 1 || type == Type.FLOAT && width != 32) {
+                throwException(
+                    IllegalArgumentException.class,
+                    "Schema field " + name +
+                        " cannot be " + width + " bits wide as a " + type
+                );
+            }
+
+            if (count < 1) {
+                throwException(
+                    IllegalArgumentException.class,
+                    "Schema field " + name +
+                        " must have at least one value"
+                );
+            }
+
+            names.add(name);
+            firstSlots.add(offsets.length);
+
+            int slots = offsets.length + count;
+
+            offsets = Arrays.copyOf(
+                offsets,
+                slots
+            );
+
+            widths = Arrays.copyOf(
+                widths,
+                slots
+            );
+
+            shifts = Arrays.copyOf(
+                shifts,
+                slots
+            );
+
+            for (int slot = slots - count; slot < slots; slot++) {
+                offsets[slot] = length;
+                widths[slot] = width;
+
+                // shifting a value up to the top of the long and back sign-extends it; unsigned values are not shifted
+                shifts[slot] = type == Type.SIGNED ? 64 - width : 0;
+
+                length += width;
+            }
+
+            return this;
+        }
+
+        /**
+         * @return the slot holding the field's first value; an array field's later values follow it
+         *
+         * @throws IllegalArgumentException if no field has the name
+         */
+        public int slot(String name) {
+            int field = names.indexOf(name);
+
+            if (field == -1) {
+                throwException(
+                    IllegalArgumentException.class,
+                    "Schema has no field " +
+                        name
+                );
+            }
+
+            return firstSlots.get(field);
+        }
+
+        /**
+         * @return the number of values in an update
+         */
+        public int getSlots() {
+            return offsets.length;
+        }
+
+        /**
+         * @return the number of bits in an update
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * reads every value of an update into its slot, signed values sign-extended and floats as their raw bits
+         */
+        void decode(BitReader data, int start, long[] values) {
+            for (int slot = 0; slot < offsets.length; slot++) {
+                values[slot] = data.readBits(
+                    start + offsets[slot],
+                    widths[slot]
+                ) << shifts[slot] >> shifts[slot];
+            }
+        }
+    }
+
+    /**
+     * an I2C device whose update is described by a {@link Schema}: the update length and decoding come from the schema, and the device only
+     * copies the decoded values it exposes out of their slots
+     */
+    public static abstract class SchemaDevice extends I2CDevice {
+        private final Schema schema;
+        private final long[] values;
+
+        protected SchemaDevice(Schema schema) {
+            this.schema = schema;
+
+            values = new long[schema.getSlots()];
+        }
+
+        /**
+         * called after every decoded update, to copy the values out of their slots
+         */
+        protected abstract void onUpdate();
+
+        protected boolean getBoolean(int slot) {
+            return values[slot] != 0;
+        }
+
+        protected long getLong(int slot) {
+            return values[slot];
+        }
+
+        protected float getFloat(int slot) {
+            return Float.intBitsToFloat((int) values[slot]);
+        }
+
+        protected int getUpdateLength() {
+            return schema.getLength();
+        }
+
+        protected void parseUpdate(BitReader data, int start) {
+            schema.decode(
+                data,
+                start,
+                values
+            );
+
+            onUpdate();
+        }
+    }
+
+    public static class APDS9151 extends SchemaDevice {
+        private static final Schema UPDATE = new Schema()
+            .field(
+                "disconnected",
+                Schema.Type.BOOLEAN,
+                1
+            )
+            .field(
+                "proximity",
+                Schema.Type.UNSIGNED,
+                11
+            )
+            .field(
+                "infrared",
+                Schema.Type.UNSIGNED,
+                16
+            )
+            .field(
+                "red",
+                Schema.Type.UNSIGNED,
+                16
+            )
+            .field(
+                "green",
+                Schema.Type.UNSIGNED,
+                16
+            )
+            .field(
+                "blue",
+                Schema.Type.UNSIGNED,
+                16
+            );
+
+        private static final int DISCONNECTED = UPDATE.slot("disconnected");
+        private static final int PROXIMITY = UPDATE.slot("proximity");
+        private static final int INFRARED = UPDATE.slot("infrared");
+        private static final int RED = UPDATE.slot("red");
+        private static final int GREEN = UPDATE.slot("green");
+        private static final int BLUE = UPDATE.slot("blue");
+
+        private final BitSet config = new BitSet(getInitLength());
+
+        public boolean disconnected = false;
+
+        public short proximity;
+        public int infrared;
+        public int red;
+        public int green;
+        public int blue;
+
+        public APDS9151() {
+            super(UPDATE);
+        }
+
+        protected int getValue() {
+            return 0;
+        }
+
+        protected int getInitLength() {
+            return 0;
+        }
+
+        protected int getAddress() {
+            return 0x52;
+        }
+
+        protected BitSet getConfig() {
+            return config;
+        }
+
+        protected void onUpdate() {
+            disconnected = getBoolean(DISCONNECTED);
+
+            proximity = (short) getLong(PROXIMITY);
+
+            infrared = (int) getLong(INFRARED);
+            red = (int) getLong(RED);
+            green = (int) getLong(GREEN);
+            blue = (int) getLong(BLUE);
+        }
+    }
+
+    public static class VL53L5CX extends SchemaDevice {
+        public enum Resolution {
+            GRID_4x4(0),
+            GRID_8x8(1);
+
+            final byte value;
+
+            Resolution(int value) {
+                this.value = (byte) value;
+            }
+        }
+
+        private static final Schema GRID_4x4_UPDATE = new Schema()
+            .field(
+                "disconnected",
+                Schema.Type.BOOLEAN,
+                1
+            )
+            .field(
+                "distances",
+                Schema.Type.UNSIGNED,
+                11,
+                16
+            );
+
+        private static final Schema GRID_8x8_UPDATE = new Schema()
+            .field(
+                "disconnected",
+                Schema.Type.BOOLEAN,
+                1
+            )
+            .field(
+                "distances",
+                Schema.Type.UNSIGNED,
+                11,
+                64
+            );
+
+        // both grids share the same slots
+        private static final int DISCONNECTED = GRID_4x4_UPDATE.slot("disconnected");
+        private static final int DISTANCES = GRID_4x4_UPDATE.slot("distances");
+
+        private final BitSet config = new BitSet(getInitLength());
+
+        public boolean disconnected = false;
+
+        public final short[] distances;
+
+        public VL53L5CX(Resolution resolution) {
+            super(resolution.value == 0 ? GRID_4x4_UPDATE : GRID_8x8_UPDATE);
+
+            config.set(
+                0,
+                resolution.value == 1
+            );
+
+            distances = resolution.value == 0 ? new short[16] : new short[64];
+        }
+
+        protected int getValue() {
+            return 1;
+        }
+
+        protected int getInitLength() {
+            return 1;
+        }
+
+        protected int getAddress() {
+            return 0x29;
+        }
+
+        protected BitSet getConfig() {
+            return config;
+        }
+
+        protected void onUpdate() {
+            disconnected = getBoolean(DISCONNECTED);
+
+            for (int k = 0; k < distances.length; k++) {
+                distances[k] = (short) getLong(DISTANCES + k);
+            }
+        }
+    }
+
+    public static class VL53L0X extends SchemaDevice {
+        private static final Schema UPDATE = new Schema()
+            .field(
+                "disconnected",
+                Schema.Type.BOOLEAN,
+                1
+            )
+            .field(
+                "distance",
+                Schema.Type.UNSIGNED,
+                16
+            );
+
+        private static final int DISCONNECTED = UPDATE.slot("disconnected");
+        private static final int DISTANCE = UPDATE.slot("distance");
+
+        private final BitSet config = new BitSet(getInitLength());
+
+        public boolean disconnected = false;
+
+        public float distance;
+
+        public VL53L0X() {
+            super(UPDATE);
+        }
+
+        protected int getValue() {
+            return 2;
+        }
+
+        protected int getInitLength() {
+            return 0;
+        }
+
+        protected int getAddress() {
+            return 0x29;
+        }
+
+        protected BitSet getConfig() {
+            return config;
+        }
+
+        protected void onUpdate() {
+            disconnected = getBoolean(DISCONNECTED);
+
+            distance = getLong(DISTANCE);
+        }
+    }
+
+    public static class GoBildaPinpoint extends SchemaDevice {
+        private static final int ID = 3;
+
+        private static final Schema UPDATE = new Schema()
+            .field(
+                "disconnected",
+                Schema.Type.BOOLEAN,
+                1
+            )
+            .field(
+                "deviceStatus",
+                Schema.Type.UNSIGNED,
+                8
+            )
+            .field(
+                "xPosition",
+                Schema.Type.FLOAT,
+                32
+            )
+            .field(
+                "yPosition",
+                Schema.Type.FLOAT,
+                32
+            )
+            .field(
+                "hOrientation",
+                Schema.Type.FLOAT,
+                32
+            )
+            .field(
+                "xVelocity",
+                Schema.Type.FLOAT,
+                32
+            )
+            .field(
+                "yVelocity",
+                Schema.Type.FLOAT,
+                32
+            )
+            .field(
+                "hVelocity",
+                Schema.Type.FLOAT,
+                32
+            );
+
+        private static final int DISCONNECTED = UPDATE.slot("disconnected");
+        private static final int DEVICE_STATUS = UPDATE.slot("deviceStatus");
+        private static final int X_POSITION = UPDATE.slot("xPosition");
+        private static final int Y_POSITION = UPDATE.slot("yPosition");
+        private static final int H_ORIENTATION = UPDATE.slot("hOrientation");
+        private static final int X_VELOCITY = UPDATE.slot("xVelocity");
+        private static final int Y_VELOCITY = UPDATE.slot("yVelocity");
+        private static final int H_VELOCITY = UPDATE.slot("hVelocity");
+
+        public enum EncoderDirection {
+            FORWARD,
+            REVERSED
+        }
+
+        public static class ResetIMUCommand extends CommandBuffer {
+            /**
+             * @param bus the bus of the command's target device
+             */
+            public ResetIMUCommand(int bus) {
+                super(10);
+
+                writeHeader(
+                    bus,
+                    ID,
+                    0
+                );
+            }
+        }
+
+        /**
+         * sets the Pinpoint's pose; one instance can be kept and reused through {@link #set(float, float, float)} so that frequent pose
+         * corrections, such as from AprilTag detections, do not allocate
+         */
+        public static class SetPositionCommand extends CommandBuffer {
+            // the bit at which the pose follows the header
+            private static final int POSE = 10;
+
+            /**
+             * @param bus the bus of the command's target device
+             */
+            public SetPositionCommand(int bus) {
+                super(106);
+
+                writeHeader(
+                    bus,
+                    ID,
+                    1
+                );
+            }
+
+            /**
+             * @param bus the bus of the command's target device
+             */
+            public SetPositionCommand(int bus, float xPosition, float yPosition, float hOrientation) {
+                this(bus);
+
+                set(
+                    xPosition,
+                    yPosition,
+                    hOrientation
+                );
+            }
+
+            /**
+             * rewrites the pose this command sets
+             *
+             * @return this command, to be passed to {@link SRSHub#runCommand(Command)} or {@link SRSHub#queueCommand(Command)}
+             */
+            public SetPositionCommand set(float xPosition, float yPosition, float hOrientation) {
+                seek(POSE).writeFloat(xPosition).writeFloat(yPosition).writeFloat(hOrientation);
+
+                return this;
+            }
+        }
+
+        private final BitSet config;
+
+        public boolean disconnected = false;
+
+        public short deviceStatus;
+
+        public float xPosition;
+        public float yPosition;
+        public float hOrientation;
+
+        public float xVelocity;
+        public float yVelocity;
+        public float hVelocity;
+
+        /**
+         * @param xPodOffset the offset of your forward tracking pod from the tracking center in millimeters
+         * @param yPodOffset the offset of your strafe tracking pod from the tracking center in millimeters
+         * @param encoderResolution the millimeters traveled per encoder tick
+         * @param xEncoderDirection the direction of the forward encoder
+         * @param yEncoderDirection the direction of the strafe encoder
+         */
+        public GoBildaPinpoint(
+            float xPodOffset,
+            float yPodOffset,
+            float encoderResolution,
+            EncoderDirection xEncoderDirection,
+            EncoderDirection yEncoderDirection
+        ) {
+            super(UPDATE);
+
+            ByteBuffer buffer = ByteBuffer.allocate(13);
+
+            buffer.putFloat(xPodOffset);
+            buffer.putFloat(yPodOffset);
+            buffer.putFloat(encoderResolution);
+
+            int directionBits = 0;
+
+            if (xEncoderDirection == EncoderDirection.REVERSED) {
+                directionBits |= 1;
+            }
+
+            if (yEncoderDirection == EncoderDirection.REVERSED) {
+                directionBits |= 2;
+            }
+
+            buffer.put((byte) directionBits);
+
+            config = BitSet.valueOf(buffer.array());
+        }
+
+        protected int getValue() {
+            return ID;
+        }
+
+        protected int getInitLength() {
+            return 98;
+        }
+
+        protected int getAddress() {
+            return 0x31;
+        }
+
+        protected BitSet getConfig() {
+            return config;
+        }
+
+        protected void onUpdate() {
+            disconnected = getBoolean(DISCONNECTED);
+
+            deviceStatus = (short) getLong(DEVICE_STATUS);
+
+            xPosition = getFloat(X_POSITION);
+            yPosition = getFloat(Y_POSITION);
+            hOrientation = getFloat(H_ORIENTATION);
+
+            xVelocity = getFloat(X_VELOCITY);
+            yVelocity = getFloat(Y_VELOCITY);
+            hVelocity = getFloat(H_VELOCITY);
+        }
+    }
+
+    public static class Config {
+        private boolean locked = false;
+
+        protected final AnalogDigitalDevice[] analogDigitalDevices =
+            new AnalogDigitalDevice[12];
+
+        protected final Encoder[] encoders = new Encoder[6];
+
+        protected final ArrayList<I2CDevice>[] i2cBuses = new ArrayList[]{
+            new ArrayList<I2CDevice>(),
+            new ArrayList<I2CDevice>(),
+            new ArrayList<I2CDevice>()
+        };
+
+        private final AnalogDigitalHandle[] analogDigitalHandles =
+            new AnalogDigitalHandle[12];
+
+        private final EncoderHandle[] encoderHandles = new EncoderHandle[6];
+
+        private int historyCapacity = 0;
+
+        private DeadWheelOdometry odometry;
+
+        private final VelocityEstimator[] velocityEstimators = new VelocityEstimator[6];
+
+        public Config() {
+            Arrays.fill(
+                analogDigitalDevices,
+                AnalogDigitalDevice.NONE
+            );
+
+            Arrays.fill(
+                encoders,
+                Encoder.NONE
+            );
+
+            for (int i = 0; i < analogDigitalHandles.length; i++) {
+                analogDigitalHandles[i] = new AnalogDigitalHandle(i);
+            }
+
+            for (int i = 0; i < encoderHandles.length; i++) {
+                encoderHandles[i] = new EncoderHandle(i);
+            }
+        }
+
+        /**
+         * configures an analog-digital pin to be analog, digital, or none
+         *
+         * @param pin the pin being configured, from 1 to 12
+         * @param device the type of device on the pin
+         *
+         * @return a handle that reads the pin's value once the configuration has been passed to init
+         *
+         * @throws IndexOutOfBoundsException if the pin is not between 1 and 12, inclusive
+         * @throws IllegalStateException if init has already been called
+         */
+        public AnalogDigitalHandle setAnalogDigitalDevice(
+            int pin,
+            AnalogDigitalDevice device
+        ) {
+            if (pin < 1 || pin > 12) {
+                throwException(
+                    IndexOutOfBoundsException.class,
+                    "AnalogDigitalDevice pin " +
+                        "must be from 1 to 12"
+                );
+            }
+
+            if (locked) {
+                throwException(
+                    IllegalStateException.class,
+                    "Config has already been " +
+                        "passed to the SRSHub; changes cannot be made"
+                );
+            }
+
+            analogDigitalDevices[pin - 1] = device;
+
+            return analogDigitalHandles[pin - 1];
+        }
+
+        /**
+         * configures an encoder port to be quadrature, pwm, or none
+         *
+         * @param port the port being configured, from 1 to 6
+         * @param device the type of device on the port
+         *
+         * @return a handle that reads the port's position and velocity once the configuration has been passed to init
+         *
+         * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
+         * @throws IllegalStateException if init has already been called
+         */
+        public EncoderHandle setEncoder(int port, Encoder device) {
+            if (port < 1 || port > 6) {
+                throwException(
+                    IndexOutOfBoundsException.class,
+                    "Encoder port must " +
+                        "be from 1 to 6"
+                );
+            }
+
+            if (locked) {
+                throwException(
+                    IllegalStateException.class,
+                    "Config has already been " +
+                        "passed to the SRSHub; changes cannot be made"
+                );
+            }
+
+            encoders[port - 1] = device;
+
+            return encoderHandles[port - 1];
+        }
+
+        /**
+         * adds a device to an I2C bus
+         *
+         * @param bus the bus to which the device is being added, from 1 to 3
+         * @param device the (unique) type of the device on the bus
+         *
+         * @return the device, whose fields hold its current values once the configuration has been passed to init
+         *
+         * @throws IndexOutOfBoundsException if the bus is not between 1 and 3, inclusive
+         * @throws IllegalStateException if init has already been called or if a device of the same I2C address has been configured on the bus
+         */
+        public <T extends I2CDevice> T addI2CDevice(int bus, T device) {
+            return addI2CDevice(
+                bus,
+                device,
+                1
+            );
+        }
+
+        /**
+         * adds a device to an I2C bus whose values only need to be refreshed every few updates, such as a sensor that samples slower than the
+         * control loop; the SRSHub still sends the device's data in every frame, but the driver only decodes it on every updateDivisor-th
+         * update, spreading slow devices across updates
+         *
+         * @param bus the bus to which the device is being added, from 1 to 3
+         * @param device the (unique) type of the device on the bus
+         * @param updateDivisor the number of updates per refresh of the device's values, at least 1
+         *
+         * @return the device, whose fields hold its current values once the configuration has been passed to init
+         *
+         * @throws IndexOutOfBoundsException if the bus is not between 1 and 3, inclusive
+         * @throws IllegalArgumentException if the update divisor is less than 1
+         * @throws IllegalStateException if init has already been called or if a device of the same I2C address has been configured on the bus
+         */
+        public <T extends I2CDevice> T addI2CDevice(int bus, T device, int updateDivisor) {
+            if (bus < 1 || bus > 3) {
+                throwException(
+                    IndexOutOfBoundsException.class,
+                    "I2C bus must be from 1 to" +
+                        " 3"
+                );
+            }
+
+            if (locked) {
+                throwException(
+                    IllegalStateException.class,
+                    "Config has already been " +
+                        "passed to the SRSHub; changes cannot be made"
+                );
+            }
+
+            for (I2CDevice i2cDevice : i2cBuses[bus - 1]) {
+                if (i2cDevice.getClass() == device.getClass()) {
+                    throwException(
+                        IllegalStateException.class,
+                        "I2C Bus #" + bus + " " +
+                            "already has a device of type " + device
+                            .getClass()
+                            .getName()
+                    );
+                }
+
+                if (i2cDevice.getAddress() == device.getAddress()) {
+                    throwException(
+                        IllegalStateException.class,
+                        "I2C Bus #" + bus + " " +
+                            "already has a bus of type " + i2cDevice
+                            .getClass()
+                            .getName() + " which has an I2C address conflicting " +
+                            "with the " + device
+                            .getClass()
                             .getName()
                     );
                 }
+            }
+
+            if (updateDivisor < 1) {
+                throwException(
+                    IllegalArgumentException.class,
+                    "I2C device update divisor " +
+                        "must be at least 1"
+                );
+            }
+
+            device.updateDivisor = updateDivisor;
+
+            i2cBuses[bus - 1].add(device);
+
+            return device;
+        }
+
+        /**
+         * @return the number of bytes in every update frame for this configuration, including the device ID and CRC; each update is a single
+         *     bulk-read of this length, which may not exceed 100 bytes
+         */
+        public int getUpdateLength() {
+            int bits = 8;
+
+            for (AnalogDigitalDevice device : analogDigitalDevices) {
+                switch (device) {
+                    case ANALOG:
+                        bits += BITS_PER_ANALOG_VALUE;
+
+                        break;
+                    case DIGITAL:
+                        bits += BITS_PER_DIGITAL_VALUE;
+
+                        break;
+                    case NONE:
+                        break;
+                }
+            }
+
+            for (Encoder encoder : encoders) {
+                if (encoder != Encoder.NONE) {
+                    bits += BITS_PER_ENCODER_POSITION + BITS_PER_ENCODER_VELOCITY;
+                }
+            }
+
+            for (ArrayList<I2CDevice> bus : i2cBuses) {
+                for (I2CDevice device : bus) {
+                    bits += device.getUpdateLength();
+                }
+            }
+
+            return 2 + (bits + 7) / 8;
+        }
+
+        /**
+         * keeps the encoder positions and Pinpoint poses of the given number of most recently decoded frames, to be looked up by time through
+         * {@link SRSHub#getHistory()}; no history is kept by default
+         *
+         * @param capacity the number of frames kept; at 500 frames per second, 250 covers half a second
+         *
+         * @throws IllegalArgumentException if the capacity is negative
+         * @throws IllegalStateException if the configuration has already been passed to the SRSHub
+         */
+        public void setHistoryCapacity(int capacity) {
+            if (capacity < 0) {
+                throwException(
+                    IllegalArgumentException.class,
+                    "History capacity " +
+                        "must not be negative"
+                );
+            }
+
+            if (locked) {
+                throwException(
+                    IllegalStateException.class,
+                    "Config has already been " +
+                        "passed to the SRSHub; changes cannot be made"
+                );
+            }
+
+            historyCapacity = capacity;
+        }
+
+        /**
+         * tracks the robot's pose from dead wheels on this configuration's quadrature ports, integrating every frame the SRSHub decodes
+         *
+         * @return odometry
+         *
+         * @throws IllegalStateException if one of the odometry's ports has not been set to a quadrature encoder
+         * @throws IllegalStateException if the configuration has already been passed to the SRSHub
+         */
+        public DeadWheelOdometry setDeadWheelOdometry(DeadWheelOdometry odometry) {
+            if (locked) {
+                throwException(
+                    IllegalStateException.class,
+                    "Config has already been " +
+                        "passed to the SRSHub; changes cannot be made"
+                );
+            }
+
+            for (int port : new int[]{odometry.left, odometry.right, odometry.perpendicular}) {
+                if (encoders[port] != Encoder.QUADRATURE) {
+                    throwException(
+                        IllegalStateException.class,
+                        "Encoder port #" + (port + 1) +
+                            " must be set to a quadrature encoder for dead wheel odometry"
+                    );
+                }
+            }
+
+            this.odometry = odometry;
+
+            return odometry;
+        }
+
+        /**
+         * estimates the velocity of the encoder at the specified port on the host, from every frame the SRSHub decodes
+         *
+         * @param port the port being estimated, from 1 to 6
+         *
+         * @return estimator
+         *
+         * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
+         * @throws IllegalStateException if the port has not been set to an encoder
+         * @throws IllegalStateException if the configuration has already been passed to the SRSHub
+         */
+        public VelocityEstimator setVelocityEstimator(int port, VelocityEstimator estimator) {
+            if (port < 1 || port > 6) {
+                throwException(
+                    IndexOutOfBoundsException.class,
+                    "Encoder port " +
+                        "must be from 1 to 6"
+                );
+            }
+
+            if (locked) {
+                throwException(
+                    IllegalStateException.class,
+                    "Config has already been " +
+                        "passed to the SRSHub; changes cannot be made"
+                );
+            }
+
+            if (encoders[port - 1] == Encoder.NONE) {
+                throwException(
+                    IllegalStateException.class,
+                    "Encoder port #" + port +
+                        " must be set to an encoder before estimating its velocity"
+                );
+            }
+
+            velocityEstimators[port - 1] = estimator;
+
+            return estimator;
+        }
+
+        History createHistory(SRSHub hub) {
+            if (historyCapacity == 0) {
+                return null;
+            }
+
+            ArrayList<GoBildaPinpoint> pinpoints = new ArrayList<>();
+
+            for (ArrayList<I2CDevice> bus : i2cBuses) {
+                for (I2CDevice device : bus) {
+                    if (device instanceof GoBildaPinpoint) {
+                        pinpoints.add((GoBildaPinpoint) device);
+                    }
+                }
+            }
+
+            return new History(
+                hub,
+                historyCapacity,
+                encoders,
+                pinpoints.toArray(new GoBildaPinpoint[0])
+            );
+        }
+
+        protected void lock() {
+            locked = true;
+        }
+
+        void bind(SRSHub hub) {
+            for (AnalogDigitalHandle handle : analogDigitalHandles) {
+                handle.hub = hub;
+            }
+
+            for (EncoderHandle handle : encoderHandles) {
+                handle.hub = hub;
+            }
+
+            if (odometry != null) {
+                odometry.hub = hub;
+            }
+
+            for (VelocityEstimator estimator : velocityEstimators) {
+                if (estimator != null) {
+                    estimator.hub = hub;
+                }
+            }
+        }
+    }
+
+    public SRSHub(
+        I2cDeviceSynchSimple deviceClient,
+        boolean deviceClientIsOwned
+    ) {
+        super(
+            deviceClient,
+            deviceClientIsOwned
+        );
+
+        this.deviceClient.setI2cAddress(I2cAddr.create7bit(I2C_ADDRESS));
+        super.registerArmingStateCallback(false);
+    }
+
+    protected boolean doInitialize() {
+        if (this.deviceClient instanceof LynxI2cDeviceSynch) {
+            ((LynxI2cDeviceSynch) this.deviceClient).setBusSpeed(LynxI2cDeviceSynch.BusSpeed.FAST_400K);
+        }
+
+        isInitialized = false;
+
+        verifyInitialization();
+
+        return true;
+    }
+
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    public String getDeviceName() {
+        return "SRSHub";
+    }
+
+    enum Register {
+        DEVICE_INFO(
+            0x00,
+            4
+        ),
+
+        RESTART(
+            0x01,
+            1
+        ),
+
+        INIT(
+            0x02,
+            -1
+        ),
+
+        READ(
+            0x03,
+            -1
+        ),
+
+        COMMAND(
+            0x04,
+            -1
+        );
+
+        public final byte address;
+        public final int length;
+
+        Register(int address, int length) {
+            this.address = (byte) address;
+            this.length = length;
+        }
+    }
+
+    private void verifyInitialization() {
+        if (!isInitialized) {
+            byte[] deviceInfo = ByteBuffer.wrap(deviceClient.read(
+                Register.DEVICE_INFO.address,
+                Register.DEVICE_INFO.length
+            )).order(BYTE_ORDER).array();
+
+            int deviceId = deviceInfo[0];
+
+            if (deviceId != DEVICE_ID) {
+                RobotLog.addGlobalWarningMessage(
+                    "SRSHub initialization failed"
+                );
+
+                disconnected = true;
+
+                return;
+            }
+
+            int deviceMajorVersion = deviceInfo[1];
+            int deviceMinorVersion = deviceInfo[2];
+            int devicePatchVersion = deviceInfo[3];
+
+            if (deviceMajorVersion != DEVICE_MAJOR_VERSION ||
+                deviceMinorVersion != DEVICE_MINOR_VERSION ||
+                devicePatchVersion != DEVICE_PATCH_VERSION) {
+                throwException(
+                    RuntimeException.class,
+                    "SRSHub does not report correct firmware version; " +
+                        "received v" + deviceMajorVersion + "."
+                        + deviceMinorVersion + "." +
+                        devicePatchVersion + ", expected v" +
+                        DEVICE_MAJOR_VERSION + "." +
+                        DEVICE_MINOR_VERSION + "." +
+                        DEVICE_PATCH_VERSION
+                );
+            }
+
+            isInitialized = true;
+        }
+    }
+
+    private static void throwException(Class<? extends Exception> exception, String message) {
+        RobotLog.setGlobalErrorMsg(message);
+
+        try {
+            throw (exception.getConstructor(String.class).newInstance(message));
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * computes the CRC16-CCITT (polynomial 0x1021, initial value 0x0000) of a range of bytes, one table lookup per byte
+     *
+     * @param data the buffer holding the bytes being checked
+     * @param offset the index of the first byte being checked
+     * @param length the number of bytes being checked
+     *
+     * @return the 16-bit CRC
+     */
+    static int computeCRC16(byte[] data, int offset, int length) {
+        int crc = 0x0000;
+
+        for (int i = offset; i < offset + length; i++) {
+            crc = (crc << 8 ^ CRC16_TABLE[(crc >>> 8 ^ data[i]) & 0xFF]) & 0xFFFF;
+        }
+
+        return crc;
+    }
+
+    /**
+     * flattens the locked configuration into the decode steps run by every update, so that update does not walk the configuration
+     */
+    private void compileDecodePlan(Config config) {
+        int steps = 0;
+        int devices = 0;
+
+        for (AnalogDigitalDevice device : config.analogDigitalDevices) {
+            if (device != AnalogDigitalDevice.NONE) {
+                steps++;
+            }
+        }
+
+        for (Encoder encoder : config.encoders) {
+            if (encoder != Encoder.NONE) {
+                steps += 2;
+            }
+        }
+
+        for (ArrayList<I2CDevice> bus : config.i2cBuses) {
+            devices += bus.size();
+        }
+
+        int[] plan = new int[(steps + devices) * DECODE_STRIDE];
+        I2CDevice[] planDevices = new I2CDevice[devices];
+
+        int step = 0;
+        int index = 8;
+
+        for (int i = 0; i < config.analogDigitalDevices.length; i++) {
+            switch (config.analogDigitalDevices[i]) {
+                case ANALOG:
+                    step = addDecodeStep(
+                        plan,
+                        step,
+                        DECODE_ANALOG,
+                        index,
+                        BITS_PER_ANALOG_VALUE,
+                        i
+                    );
+
+                    index += BITS_PER_ANALOG_VALUE;
+
+                    break;
+                case DIGITAL:
+                    step = addDecodeStep(
+                        plan,
+                        step,
+                        DECODE_DIGITAL,
+                        index,
+                        BITS_PER_DIGITAL_VALUE,
+                        i
+                    );
+
+                    index += BITS_PER_DIGITAL_VALUE;
+
+                    break;
+                case NONE:
+                    break;
+            }
+        }
+
+        for (int i = 0; i < config.encoders.length; i++) {
+            switch (config.encoders[i]) {
+                case QUADRATURE:
+                    step = addDecodeStep(
+                        plan,
+                        step,
+                        DECODE_ENCODER_DELTA,
+                        index,
+                        BITS_PER_ENCODER_POSITION,
+                        i
+                    );
+
+                    index += BITS_PER_ENCODER_POSITION;
+
+                    break;
+                case PWM:
+                    step = addDecodeStep(
+                        plan,
+                        step,
+                        DECODE_ENCODER_POSITION,
+                        index,
+                        BITS_PER_ENCODER_POSITION,
+                        i
+                    );
+
+                    index += BITS_PER_ENCODER_POSITION;
+
+                    break;
+                case NONE:
+                    continue;
+            }
+
+            step = addDecodeStep(
+                plan,
+                step,
+                DECODE_ENCODER_VELOCITY,
+                index,
+                BITS_PER_ENCODER_VELOCITY,
+                i
+            );
+
+            index += BITS_PER_ENCODER_VELOCITY;
+        }
+
+        int device = 0;
+
+        for (ArrayList<I2CDevice> bus : config.i2cBuses) {
+            for (I2CDevice i2cDevice : bus) {
+                planDevices[device] = i2cDevice;
+
+                step = addDecodeStep(
+                    plan,
+                    step,
+                    DECODE_I2C_DEVICE,
+                    index,
+                    i2cDevice.getUpdateLength(),
+                    device++
+                );
+
+                index += i2cDevice.getUpdateLength();
+            }
+        }
+
+        decodePlan = plan;
+        decodeDevices = planDevices;
+
+        decodeCycle = 0;
+    }
+
+    private static int addDecodeStep(int[] plan, int step, int op, int offset, int width, int slot) {
+        plan[step] = op;
+        plan[step + 1] = offset;
+        plan[step + 2] = width;
+        plan[step + 3] = slot;
+
+        return step + DECODE_STRIDE;
+    }
+
+    /**
+     * encodes the configuration into the INIT bitstream and compiles the decode plan for its update frames
+     *
+     * @return the INIT register payload
+     *
+     * @throws IllegalStateException if the update frame would exceed the maximum bulk-read length
+     */
+    byte[] encodeConfig(Config config) {
+        if (config.getUpdateLength() > MAX_UPDATE_LENGTH) {
+            throwException(
+                IllegalStateException.class,
+                "Maximum bulk-read length of 100 bytes exceeded; " +
+                    "the configuration needs " + config.getUpdateLength() + " bytes per update"
+            );
+        }
+
+        int initLength =
+            config.analogDigitalDevices.length * BITS_PER_ANALOG_DIGITAL_DEVICE + config.encoders.length * BITS_PER_ENCODER + config.i2cBuses.length * MIN_BITS_PER_I2C_BUS;
+
+        int[] busLengths = new int[config.i2cBuses.length];
+
+        for (int i = 0; i < config.i2cBuses.length; i++) {
+            for (int j = 0; j < config.i2cBuses[i].size(); j++) {
+                busLengths[i] += BITS_PER_I2C_DEVICE + config.i2cBuses[i]
+                    .get(j)
+                    .getInitLength();
+            }
+
+            initLength += busLengths[i];
+        }
+
+        BitSet init = new BitSet(initLength);
+
+        int index = 0;
+
+        for (int i = 0; i < config.analogDigitalDevices.length; i++) {
+            for (int j = 0; j < BITS_PER_ANALOG_DIGITAL_DEVICE; j++) {
+                init.set(
+                    index++,
+                    (config.analogDigitalDevices[i].value >> j & 1) == 1
+                );
+            }
+        }
+
+        for (int i = 0; i < config.encoders.length; i++) {
+            for (int j = 0; j < BITS_PER_ENCODER; j++) {
+                init.set(
+                    index++,
+                    (config.encoders[i].value >> j & 1) == 1
+                );
+            }
+        }
+
+        for (int i = 0; i < config.i2cBuses.length; i++) {
+            for (int j = 0; j < MIN_BITS_PER_I2C_BUS; j++) {
+                init.set(
+                    index++,
+                    (busLengths[i] >> j & 1) == 1
+                );
+            }
+
+            for (int j = 0; j < config.i2cBuses[i].size(); j++) {
+                I2CDevice device = config.i2cBuses[i].get(j);
+
+                for (int k = 0; k < BITS_PER_I2C_DEVICE; k++) {
+                    init.set(
+                        index++,
+                        (device.getValue() >> k & 1) == 1
+                    );
+                }
+
+                for (int k = 0; k < device.getInitLength(); k++) {
+                    init.set(
+                        index++,
+                        device.getConfig().get(k)
+                    );
+                }
+            }
+        }
+
+        compileDecodePlan(config);
+
+        updateLength = config.getUpdateLength();
+
+        byte[] data = new byte[(initLength + 7) / 8];
+
+        System.arraycopy(
+            init.toByteArray(),
+            0,
+            data,
+            0,
+            init.toByteArray().length
+        );
+
+        return data;
+    }
+
+    /**
+     * passes the configuration to the SRSHub, skipping the restart if the SRSHub is still running the same configuration
+     *
+     * @param config the configuration details that will be passed to the SRSHub
+     *
+     * @throws IllegalStateException if the configuration's update frame would exceed the maximum bulk-read length; this is checked before the
+     *     SRSHub is restarted
+     *
+     * @see #init(Config, boolean)
+     */
+    public void init(
+        @NonNull Config config
+    ) {
+        init(
+            config,
+            true
+        );
+    }
+
+    /**
+     * passes the configuration to the SRSHub
+     *
+     * @param config the configuration details that will be passed to the SRSHub
+     * @param warmStart whether to skip restarting and reconfiguring the SRSHub, which takes 2.5 seconds by default, when this robot controller last sent
+     *     it the identical configuration and it still answers with frames of that configuration; encoder positions restart from 0 either way,
+     *     but a warm start keeps whatever the SRSHub's I2C devices hold, such as a Pinpoint's pose and any position or IMU reset sent to it,
+     *     which a restart would clear
+     *
+     * @throws IllegalStateException if the configuration's update frame would exceed the maximum bulk-read length; this is checked before the
+     *     SRSHub is restarted
+     */
+    public void init(
+        @NonNull Config config,
+        boolean warmStart
+    ) {
+        long start = System.nanoTime();
+
+        stopPolling();
+
+        config.lock();
+
+        // encoding first rejects a configuration that cannot be read before the SRSHub is restarted for it
+        byte[] data = encodeConfig(config);
+
+        long encoded = System.nanoTime();
+
+        this.config = config;
+
+        config.bind(this);
+
+        initData = data;
+
+        disconnectedReads = 0;
+        answeredDuringOutage = false;
+        outageStart = 0;
+        reconnectBackoff = MIN_RECONNECT_BACKOFF;
+
+        ready = false;
+
+        long stamp = stateLock.writeLock();
+
+        try {
+            disconnected = false;
+
+            Arrays.fill(
+                analogDigitalValues,
+                0
+            );
+
+            Arrays.fill(
+                encoderPositions,
+                0
+            );
+
+            Arrays.fill(
+                encoderVelocities,
+                0
+            );
+        }
+        finally {
+            stateLock.unlockWrite(stamp);
+        }
+
+        history = config.createHistory(this);
+
+        odometry = config.odometry;
+
+        if (odometry != null) {
+            odometry.restart();
+        }
+
+        deltaTimestamp = 0;
+
+        velocityEstimators = config.velocityEstimators;
+
+        for (VelocityEstimator estimator : velocityEstimators) {
+            if (estimator != null) {
+                estimator.restart();
+            }
+        }
+
+        synchronized (commandLock) {
+            queuedCommands.clear();
+        }
+
+        if (warmStart && holdsConfig(data)) {
+            long verified = System.nanoTime();
+
+            update();
+
+            initTimings = new InitTimings(
+                true,
+                start,
+                encoded,
+                encoded,
+                verified,
+                System.nanoTime()
+            );
+
+            ready = true;
+
+            return;
+        }
+
+        synchronized (ACTIVE_CONFIGS) {
+            ACTIVE_CONFIGS.remove(deviceClient);
+        }
+
+        try {
+            restart();
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+
+        long restarted = System.nanoTime();
+
+        verifyInitialization();
+
+        long verified = System.nanoTime();
+
+        deviceClient.write(
+            Register.INIT.address,
+            data
+        );
+
+        if (isInitialized) {
+            synchronized (ACTIVE_CONFIGS) {
+                ACTIVE_CONFIGS.put(
+                    deviceClient,
+                    data
+                );
+            }
+        }
+
+        update();
+
+        initTimings = new InitTimings(
+            false,
+            start,
+            encoded,
+            restarted,
+            verified,
+            System.nanoTime()
+        );
+
+        ready = true;
+    }
+
+    /**
+     * passes the configuration to the SRSHub on a background thread, so that the restart wait and version check do not block the caller;
+     * update and the accessors must not be used until the returned future completes or ready returns true
+     *
+     * @param config the configuration details that will be passed to the SRSHub
+     *
+     * @return a future that completes when the SRSHub is ready, or completes exceptionally with the exception init would have thrown
+     *
+     * @see #init(Config)
+     */
+    public CompletableFuture<Void> initAsync(
+        @NonNull final Config config
+    ) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        ready = false;
+
+        Thread initializer = new Thread(
+            () -> {
+                try {
+                    init(config);
+
+                    future.complete(null);
+                }
+                catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            },
+            "SRSHub init"
+        );
 
-                if (i2cDevice.getAddress() == device.getAddress()) {
-                    throwException(
-                        IllegalStateException.class,
-                        "I2C Bus #" + bus + " " +
-                            "already has a bus of type " + i2cDevice
-                            .getClass()
-                            .getName() + " which has an I2C address conflicting " +
-                            "with the " + device
-                            .getClass()
-                            .getName()
+        initializer.setDaemon(true);
+        initializer.start();
+
+        return future;
+    }
+
+    /**
+     * restarts the SRSHub, clearing its configuration, and waits for it to boot
+     */
+    private void restart() throws InterruptedException {
+        deviceClient.write(
+            Register.RESTART.address,
+            new byte[Register.RESTART.length]
+        );
+
+        isInitialized = false;
+
+        sleep(restartWait);
+    }
+
+    /**
+     * @return whether this robot controller last configured the SRSHub with the given INIT payload and the SRSHub still answers READ with a
+     *     valid frame of that configuration's length, which it cannot after losing power; the frame's encoder deltas are discarded, as a
+     *     restart would have discarded them
+     */
+    private boolean holdsConfig(byte[] data) {
+        synchronized (ACTIVE_CONFIGS) {
+            if (!Arrays.equals(
+                ACTIVE_CONFIGS.get(deviceClient),
+                data
+            )) {
+                return false;
+            }
+        }
+
+        byte[] rawData = deviceClient.read(
+            Register.READ.address,
+            updateLength
+        );
+
+        return checkFrame(rawData) == FRAME_VALID;
+    }
+
+    /**
+     * bulk-reads data from the SRSHub as specified in the configuration, reading again if the frame fails its CRC as allowed by the retry
+     * policy; while polling, this instead decodes the most recent frame read by the polling thread, if there is a new one, without touching
+     * the I2C bus
+     *
+     * @return {@link UpdateResult#FRESH} if a new frame was decoded on the first read, {@link UpdateResult#RETRIED} if it was decoded after
+     *     reads that failed their CRC, {@link UpdateResult#STALE} if no new frame was decoded and the values are those of an earlier update, or
+     *     {@link UpdateResult#DISCONNECTED} if the SRSHub did not answer; also available from {@link #lastUpdateResult()}
+     * @throws IllegalStateException if the SRSHub has not yet been initialized
+     * @throws RuntimeException if the SRSHub is unable to update according to the provided configuration
+     */
+    public UpdateResult update() {
+        if (config == null) {
+            throwException(
+                IllegalStateException.class,
+                "The SRSHub must be initialized " +
+                    "before updating"
+            );
+        }
+
+        if (poller != null) {
+            return lastUpdateResult = updateFromPoller();
+        }
+
+        long first = System.nanoTime();
+
+        byte[] rawData;
+        long start;
+        long end;
+        int status;
+        int retries = 0;
+
+        while (true) {
+            start = System.nanoTime();
+
+            rawData = deviceClient.read(
+                Register.READ.address,
+                updateLength
+            );
+
+            end = System.nanoTime();
+
+            status = checkFrame(rawData);
+
+            metrics.recordRead(
+                end - start,
+                status
+            );
+
+            trackConnection(
+                status,
+                end
+            );
+
+            // the SRSHub sent this frame's quadrature deltas even though they cannot be trusted, so the next frame's deltas only cover the
+            // time since this read
+            if (status == FRAME_CRC_MISMATCH && deltaTimestamp != 0) {
+                deltaTimestamp = start + (end - start) / 2;
+            }
+
+            // a retry is only made if a read as long as the last one would still finish within the budget
+            if (status != FRAME_CRC_MISMATCH || retries == maxCrcRetries || end + (end - start) - first > crcRetryBudget) {
+                break;
+            }
+
+            retries++;
+
+            metrics.recordRetry();
+        }
+
+        if (status != FRAME_DISCONNECTED) {
+            sendQueuedCommands();
+        }
+
+        switch (status) {
+            case FRAME_DISCONNECTED:
+                markDisconnected();
+
+                return lastUpdateResult = UpdateResult.DISCONNECTED;
+            case FRAME_CRC_MISMATCH:
+                return lastUpdateResult = UpdateResult.STALE;
+        }
+
+        decodeFrame(
+            rawData,
+            rawData.length,
+            frameSequence + 1,
+            end,
+            start + (end - start) / 2,
+            null,
+            null
+        );
+
+        return lastUpdateResult = retries == 0 ? UpdateResult.FRESH : UpdateResult.RETRIED;
+    }
+
+    private UpdateResult updateFromPoller() {
+        if ((pendingFrame.get() & FRESH_FRAME) == 0) {
+            return disconnected ? UpdateResult.DISCONNECTED : UpdateResult.STALE;
+        }
+
+        frontFrame = pendingFrame.getAndSet(frontFrame) & ~FRESH_FRAME;
+
+        Frame frame = frames[frontFrame];
+
+        if (frame.disconnected) {
+            markDisconnected();
+
+            return UpdateResult.DISCONNECTED;
+        }
+
+        decodeFrame(
+            frame.data,
+            updateLength,
+            frame.sequence,
+            frame.timestamp,
+            frame.sampleTimestamp,
+            frame.encoderPositions,
+            frame.odometry
+        );
+
+        return frame.retried ? UpdateResult.RETRIED : UpdateResult.FRESH;
+    }
+
+    /**
+     * decodes a valid frame while holding the state lock for writing
+     *
+     * @param positions the quadrature positions accumulated by the polling thread up to this frame, or null if the frame was read directly
+     * @param odometryState the dead wheel odometry's state as integrated by the polling thread up to this frame, or null if the frame was read
+     *     directly
+     */
+    private void decodeFrame(
+        byte[] data,
+        int length,
+        long sequence,
+        long timestamp,
+        long sampleTimestamp,
+        long[] positions,
+        double[] odometryState
+    ) {
+        long stamp = stateLock.writeLock();
+
+        try {
+            disconnected = false;
+
+            frameSequence = sequence;
+            frameTimestamp = timestamp;
+            frameSampleTimestamp = sampleTimestamp;
+
+            reader.load(
+                data,
+                length
+            );
+
+            frameEncoderPositions = positions;
+            frameOdometry = odometryState;
+            frameUnchanged = unchangedFrame();
+
+            decode();
+
+            frameEncoderPositions = null;
+            frameOdometry = null;
+        }
+        finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    private void poll(long sequence) {
+        // the polling thread always reads again after a CRC mismatch, so this marks the next frame it publishes as retried
+        boolean retried = false;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+
+            byte[] rawData = deviceClient.read(
+                Register.READ.address,
+                updateLength
+            );
+
+            long end = System.nanoTime();
+
+            int status = checkFrame(rawData);
+
+            metrics.recordRead(
+                end - start,
+                status
+            );
+
+            trackConnection(
+                status,
+                end
+            );
+
+            if (status != FRAME_DISCONNECTED) {
+                sendQueuedCommands();
+            }
+
+            if (status == FRAME_CRC_MISMATCH) {
+                retried = true;
+
+                metrics.recordRetry();
+
+                // as in update, the next frame's deltas only cover the time since this read
+                if (polledDeltaTimestamp != 0) {
+                    polledDeltaTimestamp = start + (end - start) / 2;
+                }
+
+                continue;
+            }
+
+            Frame frame = frames[backFrame];
+
+            frame.disconnected = status == FRAME_DISCONNECTED;
+            frame.retried = retried;
+
+            if (frame.disconnected) {
+                polledDeltaTimestamp = 0;
+            }
+
+            retried = false;
+
+            if (!frame.disconnected) {
+                System.arraycopy(
+                    rawData,
+                    0,
+                    frame.data,
+                    0,
+                    rawData.length
+                );
+
+                frame.sequence = ++sequence;
+                frame.timestamp = end;
+                frame.sampleTimestamp = start + (end - start) / 2;
+
+                accumulatePolledEncoders(
+                    rawData,
+                    frame.sampleTimestamp
+                );
+
+                System.arraycopy(
+                    polledEncoderPositions,
+                    0,
+                    frame.encoderPositions,
+                    0,
+                    polledEncoderPositions.length
+                );
+
+                if (odometry != null) {
+                    odometry.integrate(
+                        polledEncoderPositions,
+                        polledEncoderVelocities
+                    );
+
+                    System.arraycopy(
+                        odometry.state,
+                        0,
+                        frame.odometry,
+                        0,
+                        frame.odometry.length
                     );
                 }
             }
 
-            i2cBuses[bus - 1].add(device);
-        }
-
-        protected void lock() {
-            locked = true;
+            backFrame = pendingFrame.getAndSet(backFrame | FRESH_FRAME) & ~FRESH_FRAME;
         }
     }
 
-    public SRSHub(
-        I2cDeviceSynchSimple deviceClient,
-        boolean deviceClientIsOwned
-    ) {
-        super(
-            deviceClient,
-            deviceClientIsOwned
-        );
-
-        this.deviceClient.setI2cAddress(I2cAddr.create7bit(I2C_ADDRESS));
-        super.registerArmingStateCallback(false);
-    }
+    /**
+     * recovers from an SRSHub reset: after a few disconnected reads in a row, the SRSHub is checked for, with exponential backoff, and once it
+     * answers DEVICE_INFO the next READ decides whether it reset; a valid frame, or one that fails its CRC, means it kept its configuration
+     * and only the bus dropped some transactions, so nothing is resent, while another disconnected read means it lost its configuration, so
+     * it is restarted, waited for, and sent the configuration again as init does; that wait blocks the thread reading the SRSHub, and the
+     * encoder positions accumulated so far are kept
+     */
+    private void trackConnection(int status, long now) {
+        if (status != FRAME_DISCONNECTED) {
+            answeredDuringOutage = false;
+        }
 
-    protected boolean doInitialize() {
-        ((LynxI2cDeviceSynch) this.deviceClient).setBusSpeed(LynxI2cDeviceSynch.BusSpeed.FAST_400K);
+        if (status == FRAME_VALID) {
+            if (outageStart != 0) {
+                metrics.recordOutage(now - outageStart);
+            }
 
-        isInitialized = false;
+            disconnectedReads = 0;
+            outageStart = 0;
+            reconnectBackoff = MIN_RECONNECT_BACKOFF;
 
-        verifyInitialization();
+            return;
+        }
 
-        return true;
-    }
+        if (status != FRAME_DISCONNECTED) {
+            return;
+        }
 
-    public Manufacturer getManufacturer() {
-        return Manufacturer.Other;
-    }
+        if (answeredDuringOutage) {
+            answeredDuringOutage = false;
 
-    public String getDeviceName() {
-        return "SRSHub";
-    }
+            reconnect();
 
-    enum Register {
-        DEVICE_INFO(
-            0x00,
-            4
-        ),
+            return;
+        }
 
-        RESTART(
-            0x01,
-            1
-        ),
+        if (outageStart == 0) {
+            outageStart = now;
+            nextReconnect = now;
+        }
 
-        INIT(
-            0x02,
-            -1
-        ),
+        if (!autoReconnect || ++disconnectedReads < RECONNECT_THRESHOLD || now - nextReconnect < 0) {
+            return;
+        }
 
-        READ(
-            0x03,
-            -1
-        ),
+        nextReconnect = now + reconnectBackoff;
+        reconnectBackoff = Math.min(
+            reconnectBackoff * 2,
+            MAX_RECONNECT_BACKOFF
+        );
 
-        COMMAND(
-            0x04,
-            -1
+        byte[] deviceInfo = deviceClient.read(
+            Register.DEVICE_INFO.address,
+            Register.DEVICE_INFO.length
         );
 
-        public final byte address;
-        public final int length;
+        answeredDuringOutage = deviceInfo != null && deviceInfo.length != 0 && deviceInfo[0] == DEVICE_ID;
+    }
 
-        Register(int address, int length) {
-            this.address = (byte) address;
-            this.length = length;
+    /**
+     * restarts the SRSHub and sends it the configuration again; if the thread is interrupted during the restart wait, as stopPolling does,
+     * the configuration is not sent and the interrupt is kept, so that a later outage check tries again
+     */
+    private void reconnect() {
+        try {
+            restart();
         }
-    }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
 
-    private void verifyInitialization() {
-        if (!isInitialized) {
-            byte[] deviceInfo = ByteBuffer.wrap(deviceClient.read(
-                Register.DEVICE_INFO.address,
-                Register.DEVICE_INFO.length
-            )).order(BYTE_ORDER).array();
+            return;
+        }
 
-            int deviceId = deviceInfo[0];
+        deviceClient.write(
+            Register.INIT.address,
+            initData
+        );
 
-            if (deviceId != DEVICE_ID) {
-                RobotLog.addGlobalWarningMessage(
-                    "SRSHub initialization failed"
-                );
+        isInitialized = true;
 
-                disconnected = true;
+        metrics.recordReconnect();
+    }
 
-                return;
-            }
+    private void markDisconnected() {
+        deltaTimestamp = 0;
 
-            int deviceMajorVersion = deviceInfo[1];
-            int deviceMinorVersion = deviceInfo[2];
-            int devicePatchVersion = deviceInfo[3];
+        if (disconnected) {
+            return;
+        }
 
-            if (deviceMajorVersion != DEVICE_MAJOR_VERSION ||
-                deviceMinorVersion != DEVICE_MINOR_VERSION ||
-                devicePatchVersion != DEVICE_PATCH_VERSION) {
-                throwException(
-                    RuntimeException.class,
-                    "SRSHub does not report correct firmware version; " +
-                        "received v" + deviceMajorVersion + "."
-                        + deviceMinorVersion + "." +
-                        devicePatchVersion + ", expected v" +
-                        DEVICE_MAJOR_VERSION + "." +
-                        DEVICE_MINOR_VERSION + "." +
-                        DEVICE_PATCH_VERSION
-                );
-            }
+        metrics.recordDisconnect();
 
-            isInitialized = true;
-        }
-    }
+        long stamp = stateLock.writeLock();
 
-    private static void throwException(Class<? extends Exception> exception, String message) {
-        RobotLog.setGlobalErrorMsg(message);
+        disconnected = true;
 
-        try {
-            throw (exception.getConstructor(String.class).newInstance(message));
-        }
-        catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        stateLock.unlockWrite(stamp);
     }
 
-    private int computeCRC16(byte[] data) {
-        int crc = 0x0000;
+    /**
+     * update only decodes the newest polled frame, so the poller adds up the quadrature deltas of every frame it reads to keep counts from
+     * being lost in frames that update skips, and keeps each frame's velocities for the dead wheel odometry
+     */
+    private void accumulatePolledEncoders(byte[] rawData, long sampleTimestamp) {
+        pollReader.load(
+            rawData,
+            rawData.length
+        );
 
-        for (int i = 0; i < data.length - 2; i++) {
-            crc ^= (data[i] & 0xFF) << 8;
+        long interval = polledDeltaTimestamp == 0 ? 0 : sampleTimestamp - polledDeltaTimestamp;
 
-            for (int j = 0; j < 8; j++) {
-                if ((crc & 0x8000) != 0) {
-                    crc = (crc << 1) ^ 0x1021;
-                }
-                else {
-                    crc <<= 1;
-                }
+        polledDeltaTimestamp = sampleTimestamp;
 
-                crc &= 0xFFFF;
+        for (int i = 0; i < decodePlan.length; i += DECODE_STRIDE) {
+            switch (decodePlan[i]) {
+                case DECODE_ENCODER_DELTA:
+                    polledEncoderPositions[decodePlan[i + 3]] += readEncoderDelta(
+                        pollReader,
+                        i,
+                        polledEncoderVelocities[decodePlan[i + 3]],
+                        interval
+                    );
+
+                    break;
+                case DECODE_ENCODER_VELOCITY:
+                    polledEncoderVelocities[decodePlan[i + 3]] = (int) pollReader.readSignedBits(
+                        decodePlan[i + 1],
+                        decodePlan[i + 2]
+                    );
+
+                    break;
             }
         }
-
-        return crc & 0xFFFF;
     }
 
     /**
-     * passes the configuration to the SRSHub
+     * reads a quadrature delta, which the SRSHub sends modulo 2^16, and unwraps it to the whole number of ticks nearest to what the encoder's
+     * velocity predicts over the time since the previous frame, so that an encoder moving more than 32767 ticks between reads is still
+     * counted in full; this assumes that the SRSHub reports the velocity in ticks per second and counting the same way as the position, so
+     * that an encoder counting down, such as a reversed one, reports a negative velocity, since a velocity in other units or of the opposite
+     * sign would predict the wrong number of wraps
      *
-     * @param config the configuration details that will be passed to the SRSHub
+     * @param step the index of the delta's decode step, which is followed by the same encoder's velocity step
+     * @param previousVelocity the encoder's velocity in the previous frame, in ticks per second
+     * @param interval the time since the previous frame was sampled, in nanoseconds, or 0 if the delta cannot be unwrapped
      */
-    public void init(
-        @NonNull Config config
-    ) {
-        config.lock();
-        this.config = config;
-
-        ready = false;
-        disconnected = false;
+    private long readEncoderDelta(BitReader reader, int step, int previousVelocity, long interval) {
+        long delta = reader.readSignedBits(
+            decodePlan[step + 1],
+            decodePlan[step + 2]
+        );
 
-        updateLength = 8;
+        if (interval <= 0) {
+            return delta;
+        }
 
-        deviceClient.write(
-            Register.RESTART.address,
-            new byte[Register.RESTART.length]
+        long velocity = reader.readSignedBits(
+            decodePlan[step + DECODE_STRIDE + 1],
+            decodePlan[step + DECODE_STRIDE + 2]
         );
 
-        isInitialized = false;
+        // the distance covered at the average of the two frames' velocities
+        double expected = (previousVelocity + velocity) / 2.0 * interval / 1e9;
+
+        long wraps = Math.round((expected - delta) / ENCODER_DELTA_RANGE);
 
-        Arrays.fill(
-            analogDigitalValues,
-            0
+        long unwrapped = delta + wraps * ENCODER_DELTA_RANGE;
+
+        // with the prediction more than a quarter of the range off, a different number of wraps is nearly as likely
+        metrics.recordEncoderDelta(
+            wraps,
+            Math.abs(expected - unwrapped) > ENCODER_DELTA_RANGE / 4
         );
 
-        for (int i = 0; i < encoderValues.length; i++) {
-            encoderValues[i] = new PosVel();
+        return unwrapped;
+    }
+
+    /**
+     * the firmware numbers neither its frames nor its samples, so a repeated sample is recognized by its contents instead: the loaded frame
+     * is unchanged if its bits are the same as those of the frame decoded before it and it moves no quadrature encoder
+     */
+    private boolean unchangedFrame() {
+        if (decodeCycle == 0 || reader.changed(
+            0,
+            updateLength * 8
+        )) {
+            return false;
         }
 
-        int initLength =
-            config.analogDigitalDevices.length * BITS_PER_ANALOG_DIGITAL_DEVICE + config.encoders.length * BITS_PER_ENCODER + config.i2cBuses.length * MIN_BITS_PER_I2C_BUS;
+        for (int i = 0; i < decodePlan.length; i += DECODE_STRIDE) {
+            if (decodePlan[i] != DECODE_ENCODER_DELTA) {
+                continue;
+            }
 
-        int[] busLengths = new int[config.i2cBuses.length];
+            int slot = decodePlan[i + 3];
 
-        for (int i = 0; i < config.i2cBuses.length; i++) {
-            for (int j = 0; j < config.i2cBuses[i].size(); j++) {
-                busLengths[i] += BITS_PER_I2C_DEVICE + config.i2cBuses[i]
-                    .get(j)
-                    .getInitLength();
-            }
+            long delta = frameEncoderPositions != null ? frameEncoderPositions[slot] - encoderPositions[slot] : reader.readSignedBits(
+                decodePlan[i + 1],
+                decodePlan[i + 2]
+            );
 
-            initLength += busLengths[i];
+            if (delta != 0) {
+                return false;
+            }
         }
 
-        BitSet init = new BitSet(initLength);
-
-        int index = 0;
+        return true;
+    }
 
-        for (int i = 0; i < config.analogDigitalDevices.length; i++) {
-            switch (config.analogDigitalDevices[i]) {
-                case ANALOG:
-                    updateLength += 12;
+    private int checkFrame(byte[] rawData) {
+        if (rawData == null || rawData.length == 0 || rawData[0] != DEVICE_ID) {
+            return FRAME_DISCONNECTED;
+        }
 
-                    break;
-                case DIGITAL:
-                    updateLength += 1;
+        int receivedCRC = ((rawData[rawData.length - 2] & 0xFF) << 8) | (rawData[rawData.length - 1] & 0xFF);
 
-                    break;
-                case NONE:
-                    break;
-            }
+        int computedCRC = computeCRC16(
+            rawData,
+            0,
+            rawData.length - 2
+        );
 
-            for (int j = 0; j < BITS_PER_ANALOG_DIGITAL_DEVICE; j++) {
-                init.set(
-                    index++,
-                    (config.analogDigitalDevices[i].value >> j & 1) == 1
-                );
-            }
+        // mismatches are counted by Metrics rather than raised as a global warning, which would repeat for every retry and polled read
+        if (receivedCRC != computedCRC) {
+            return FRAME_CRC_MISMATCH;
         }
 
-        for (int i = 0; i < config.encoders.length; i++) {
-            if (config.encoders[i] != Encoder.NONE) {
-                updateLength += 48;
-            }
+        return FRAME_VALID;
+    }
 
-            for (int j = 0; j < BITS_PER_ENCODER; j++) {
-                init.set(
-                    index++,
-                    (config.encoders[i].value >> j & 1) == 1
-                );
-            }
-        }
+    private void decode() {
+        long start = System.nanoTime();
 
-        for (int i = 0; i < config.i2cBuses.length; i++) {
-            for (int j = 0; j < MIN_BITS_PER_I2C_BUS; j++) {
-                init.set(
-                    index++,
-                    (busLengths[i] >> j & 1) == 1
-                );
-            }
+        for (int i = 0; i < decodePlan.length; i += DECODE_STRIDE) {
+            int offset = decodePlan[i + 1];
+            int width = decodePlan[i + 2];
+            int slot = decodePlan[i + 3];
 
-            for (int j = 0; j < config.i2cBuses[i].size(); j++) {
-                I2CDevice device = config.i2cBuses[i].get(j);
+            switch (decodePlan[i]) {
+                case DECODE_ANALOG:
+                    analogDigitalValues[slot] = reader.readBits(
+                        offset,
+                        width
+                    ) / (double) 4095;
 
-                updateLength += device.getUpdateLength();
+                    break;
+                case DECODE_DIGITAL:
+                    analogDigitalValues[slot] = reader.readBit(offset) ? 1 : 0;
 
-                for (int k = 0; k < BITS_PER_I2C_DEVICE; k++) {
-                    init.set(
-                        index++,
-                        (device.getValue() >> k & 1) == 1
+                    break;
+                case DECODE_ENCODER_DELTA:
+                    if (frameEncoderPositions != null) {
+                        encoderPositions[slot] = frameEncoderPositions[slot];
+                    }
+                    else {
+                        encoderPositions[slot] += readEncoderDelta(
+                            reader,
+                            i,
+                            encoderVelocities[slot],
+                            deltaTimestamp == 0 ? 0 : frameSampleTimestamp - deltaTimestamp
+                        );
+                    }
+
+                    break;
+                case DECODE_ENCODER_POSITION:
+                    encoderPositions[slot] = reader.readSignedBits(
+                        offset,
+                        width
                     );
-                }
 
-                for (int k = 0; k < device.getInitLength(); k++) {
-                    init.set(
-                        index++,
-                        device.getConfig().get(k)
+                    break;
+                case DECODE_ENCODER_VELOCITY:
+                    encoderVelocities[slot] = (int) reader.readSignedBits(
+                        offset,
+                        width
                     );
-                }
-            }
-        }
 
-        updateLength = 2 + (updateLength + 7) / 8;
+                    break;
+                case DECODE_I2C_DEVICE:
+                    I2CDevice device = decodeDevices[slot];
+
+                    // a device decoded on every update keeps its values from the previous frame when its bits have not changed; devices sharing
+                    // a divisor are offset by their slot so that their decoding is spread across cycles
+                    boolean due = device.updateDivisor == 1 ? reader.changed(
+                        offset,
+                        width
+                    ) : (decodeCycle + slot) % device.updateDivisor == 0;
+
+                    if (decodeCycle == 0 || due) {
+                        device.parseUpdate(
+                            reader,
+                            offset
+                        );
+                    }
+
+                    // unchanged bits still describe this frame, so only a device skipped for its divisor keeps an older sample time
+                    if (decodeCycle == 0 || due || device.updateDivisor == 1) {
+                        device.decodedSampleTimestamp = frameSampleTimestamp;
+                    }
 
-        if (updateLength > 100) {
-            throwException(
-                IllegalStateException.class,
-                "Maximum bulk-read length of 100 bytes exceeded"
-            );
+                    break;
+            }
         }
 
-        byte[] data = new byte[(initLength + 7) / 8];
+        decodeCycle++;
+
+        if (frameEncoderPositions == null) {
+            deltaTimestamp = frameSampleTimestamp;
+        }
 
-        System.arraycopy(
-            init.toByteArray(),
-            0,
-            data,
-            0,
-            init.toByteArray().length
-        );
+        if (odometry != null) {
+            if (frameOdometry == null) {
+                odometry.integrate(
+                    encoderPositions,
+                    encoderVelocities
+                );
 
-        try {
-            sleep(2500);
+                odometry.publish(odometry.state);
+            }
+            else {
+                odometry.publish(frameOdometry);
+            }
         }
-        catch (InterruptedException e) {
-            throw new RuntimeException(e);
+
+        for (int i = 0; i < velocityEstimators.length; i++) {
+            if (velocityEstimators[i] != null) {
+                velocityEstimators[i].add(
+                    frameSampleTimestamp,
+                    encoderPositions[i]
+                );
+            }
         }
 
-        verifyInitialization();
+        if (history != null) {
+            history.record(
+                frameSampleTimestamp,
+                encoderPositions
+            );
+        }
 
-        deviceClient.write(
-            Register.INIT.address,
-            data
+        metrics.recordDecode(
+            System.nanoTime() - start,
+            frameTimestamp
         );
-
-        update();
-
-        ready = true;
     }
 
     /**
-     * bulk-reads data from the SRSHub as specified in the configuration
+     * starts a background thread that bulk-reads the SRSHub back to back, so that update no longer blocks on I2C; init stops the thread
      *
      * @throws IllegalStateException if the SRSHub has not yet been initialized
-     * @throws RuntimeException if the SRSHub is unable to update according to the provided configuration
      */
-    public void update() {
+    public void startPolling() {
         if (config == null) {
             throwException(
                 IllegalStateException.class,
                 "The SRSHub must be initialized " +
-                    "before updating"
+                    "before polling"
             );
         }
 
-        byte[] rawData = deviceClient.read(
-            Register.READ.address,
-            updateLength
-        );
-
-        if (rawData == null || rawData.length == 0 || rawData[0] != DEVICE_ID) {
-            disconnected = true;
-
+        if (poller != null) {
             return;
         }
 
-        int receivedCRC = ((rawData[rawData.length - 2] & 0xFF) << 8) | (rawData[rawData.length - 1] & 0xFF);
+        frontFrame = 0;
+        backFrame = 1;
 
-        int computedCRC = computeCRC16(
-            rawData
-        );
+        pendingFrame.set(2);
 
-        if (receivedCRC != computedCRC) {
-            RobotLog.addGlobalWarningMessage("CRC Mismatch");
-            return;
-        }
+        System.arraycopy(
+            encoderPositions,
+            0,
+            polledEncoderPositions,
+            0,
+            encoderPositions.length
+        );
 
-        disconnected = false;
+        System.arraycopy(
+            encoderVelocities,
+            0,
+            polledEncoderVelocities,
+            0,
+            encoderVelocities.length
+        );
 
-        BitSet data = BitSet.valueOf(rawData);
+        polledDeltaTimestamp = deltaTimestamp;
 
-        int index = 8;
+        final long sequence = frameSequence;
 
-        for (int i = 0; i < config.analogDigitalDevices.length; i++) {
-            switch (config.analogDigitalDevices[i]) {
-                case ANALOG:
-                    byte[] chunk = data
-                        .get(
-                            index,
-                            index + 12
-                        )
-                        .toByteArray();
+        poller = new Thread(
+            () -> poll(sequence),
+            "SRSHub poller"
+        );
 
-                    byte[] paddedChunk = new byte[2];
+        poller.setDaemon(true);
+        poller.start();
+    }
 
-                    System.arraycopy(
-                        chunk,
-                        0,
-                        paddedChunk,
-                        0,
-                        chunk.length
-                    );
+    /**
+     * stops the polling thread, if running, waits for its current read to finish, and decodes its last frame; update goes back to reading the
+     * SRSHub directly
+     */
+    public void stopPolling() {
+        if (poller == null) {
+            return;
+        }
 
-                    analogDigitalValues[i] = ByteBuffer
-                        .wrap(paddedChunk)
-                        .order(BYTE_ORDER)
-                        .getShort() / (double) 4095;
+        poller.interrupt();
 
-                    index += 12;
+        try {
+            poller.join();
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
 
-                    break;
-                case DIGITAL:
-                    analogDigitalValues[i] = data.get(index++) ? 1 : 0;
+        // take the poller's last frame so that the encoder deltas it read are not lost
+        updateFromPoller();
 
-                    break;
-                case NONE:
-                    break;
-            }
-        }
+        deltaTimestamp = polledDeltaTimestamp;
 
-        for (int i = 0; i < config.encoders.length; i++) {
-            switch (config.encoders[i]) {
-                case QUADRATURE:
-                    int lastPosition = encoderValues[i].position;
+        poller = null;
+    }
 
-                    encoderValues[i] = new PosVel();
+    /**
+     * @return whether a polling thread is reading the SRSHub in the background
+     */
+    public boolean polling() {
+        return poller != null;
+    }
 
-                    byte[] quadratureChunk = data
-                        .get(
-                            index,
-                            index + 16
-                        ).toByteArray();
+    /**
+     * sets whether the SRSHub is automatically reconfigured when it stops answering and then comes back, as it does after a brown-out; on by
+     * default
+     */
+    public void setAutoReconnect(boolean autoReconnect) {
+        this.autoReconnect = autoReconnect;
+    }
 
-                    byte[] paddedQuadratureChunk = new byte[2];
+    /**
+     * sets how long init waits after restarting the SRSHub for it to boot before checking its version and configuring it; 2.5 seconds by
+     * default, which covers the SRSHub's boot, so this should only be shortened for a client that boots faster, such as a simulated SRSHub
+     *
+     * @throws IllegalArgumentException if millis is negative
+     */
+    public void setRestartWait(long millis) {
+        if (millis < 0) {
+            throwException(
+                IllegalArgumentException.class,
+                "restart wait " +
+                    "must not be negative"
+            );
+        }
 
-                    System.arraycopy(
-                        quadratureChunk,
-                        0,
-                        paddedQuadratureChunk,
-                        0,
-                        quadratureChunk.length
-                    );
+        restartWait = millis;
+    }
 
-                    encoderValues[i].position = lastPosition + ByteBuffer
-                        .wrap(paddedQuadratureChunk)
-                        .order(BYTE_ORDER)
-                        .getShort();
+    /**
+     * sets how update handles a frame that fails its CRC: it reads again up to maxRetries times, but not if the next read would be expected
+     * to end more than budgetMicros after the first began; with no retries, or when the budget runs out, update leaves the previous values in
+     * place and returns {@link UpdateResult#STALE}; the polling thread ignores this policy and always reads again; one retry within 5 ms by
+     * default
+     *
+     * @throws IllegalArgumentException if maxRetries or budgetMicros is negative
+     */
+    public void setCrcRetryPolicy(int maxRetries, long budgetMicros) {
+        if (maxRetries < 0 || budgetMicros < 0) {
+            throwException(
+                IllegalArgumentException.class,
+                "CRC retry count and budget " +
+                    "must not be negative"
+            );
+        }
 
-                    index += 16;
+        maxCrcRetries = maxRetries;
+        crcRetryBudget = budgetMicros * 1000;
+    }
 
-                    byte[] quadratureVelocityChunk = data
-                        .get(
-                            index,
-                            index + 32
-                        ).toByteArray();
+    /**
+     * @return the result of the most recent update
+     */
+    public UpdateResult lastUpdateResult() {
+        return lastUpdateResult;
+    }
 
-                    byte[] paddedQuadratureVelocityChunk = new byte[4];
+    /**
+     * @return the phase timings of the most recent init, or null if init has not completed
+     */
+    public InitTimings getInitTimings() {
+        return initTimings;
+    }
 
-                    System.arraycopy(
-                        quadratureVelocityChunk,
-                        0,
-                        paddedQuadratureVelocityChunk,
-                        0,
-                        quadratureVelocityChunk.length
-                    );
+    /**
+     * starts an optimistic read of the decoded state from a thread other than the one calling update; the values read, including the public
+     * fields of the configured I2C devices, are only consistent with each other if {@link #validate(long)} then returns true, and otherwise
+     * should be read again from a new stamp; neither call blocks update
+     *
+     * @return a stamp for {@link #validate(long)}
+     */
+    public long beginRead() {
+        return stateLock.tryOptimisticRead();
+    }
 
-                    encoderValues[i].velocity = ByteBuffer
-                        .wrap(paddedQuadratureVelocityChunk)
-                        .order(BYTE_ORDER)
-                        .getInt();
+    /**
+     * @param stamp the stamp returned by {@link #beginRead()} before the values were read
+     *
+     * @return whether update left the decoded state alone since the stamp was taken, so that the values read since are all from the same frame
+     */
+    public boolean validate(long stamp) {
+        return stateLock.validate(stamp);
+    }
 
-                    index += 32;
+    /**
+     * copies the decoded values of a single frame into a caller-owned object, from any thread, retrying if update decodes a new frame
+     * meanwhile; update is never blocked
+     *
+     * @param snapshot the object receiving the values
+     *
+     * @return snapshot
+     */
+    public Snapshot readSnapshot(Snapshot snapshot) {
+        while (true) {
+            long stamp = stateLock.tryOptimisticRead();
 
-                    break;
-                case PWM:
-                    encoderValues[i] = new PosVel();
+            System.arraycopy(
+                analogDigitalValues,
+                0,
+                snapshot.analogDigitalValues,
+                0,
+                analogDigitalValues.length
+            );
 
-                    byte[] pwmChunk = data
-                        .get(
-                            index,
-                            index + 16
-                        ).toByteArray();
+            System.arraycopy(
+                encoderPositions,
+                0,
+                snapshot.encoderPositions,
+                0,
+                encoderPositions.length
+            );
 
-                    byte[] paddedPWMChunk = new byte[2];
+            System.arraycopy(
+                encoderVelocities,
+                0,
+                snapshot.encoderVelocities,
+                0,
+                encoderVelocities.length
+            );
 
-                    System.arraycopy(
-                        pwmChunk,
-                        0,
-                        paddedPWMChunk,
-                        0,
-                        pwmChunk.length
-                    );
+            snapshot.disconnected = disconnected;
 
-                    encoderValues[i].position = ByteBuffer
-                        .wrap(paddedPWMChunk)
-                        .order(BYTE_ORDER)
-                        .getShort();
+            snapshot.frameSequence = frameSequence;
+            snapshot.frameTimestamp = frameTimestamp;
+            snapshot.frameSampleTimestamp = frameSampleTimestamp;
 
-                    index += 16;
+            if (stateLock.validate(stamp)) {
+                return snapshot;
+            }
 
-                    byte[] pwmVelocityChunk = data
-                        .get(
-                            index,
-                            index + 32
-                        ).toByteArray();
+            Thread.yield();
+        }
+    }
 
-                    byte[] paddedPWMVelocityChunk = new byte[4];
+    /**
+     * @return the time-indexed history of decoded frames, or null if the configuration keeps no history
+     *
+     * @see Config#setHistoryCapacity(int)
+     */
+    public History getHistory() {
+        return history;
+    }
 
-                    System.arraycopy(
-                        pwmVelocityChunk,
-                        0,
-                        paddedPWMVelocityChunk,
-                        0,
-                        pwmVelocityChunk.length
-                    );
+    /**
+     * @return the SRSHub's timing and error metrics
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
 
-                    encoderValues[i].velocity = ByteBuffer
-                        .wrap(paddedPWMVelocityChunk)
-                        .order(BYTE_ORDER)
-                        .getInt();
+    /**
+     * @return the sequence number of the frame decoded by the most recent successful update; it increases by one for every frame read from the
+     *     SRSHub, so an unchanged value means update had nothing new to decode and a jump of more than one means frames were skipped
+     */
+    public long frameSequence() {
+        return frameSequence;
+    }
 
-                    index += 32;
+    /**
+     * @return the {@link System#nanoTime()} at which the frame decoded by the most recent successful update was read from the SRSHub
+     */
+    public long frameTimestamp() {
+        return frameTimestamp;
+    }
 
-                    break;
-                case NONE:
-                    break;
-            }
-        }
+    /**
+     * @return an estimate of the {@link System#nanoTime()} at which the SRSHub sampled the frame decoded by the most recent successful update;
+     *     the SRSHub does not timestamp its frames, so this is the middle of the bulk-read that returned the frame, and is useful for latency
+     *     compensation to within half of that read's duration
+     */
+    public long frameSampleTimestamp() {
+        return frameSampleTimestamp;
+    }
 
-        for (int i = 0; i < config.i2cBuses.length; i++) {
-            for (int j = 0; j < config.i2cBuses[i].size(); j++) {
-                I2CDevice device = config.i2cBuses[i]
-                    .get(j);
+    /**
+     * @return the estimated time, in nanoseconds, from the SRSHub sampling the frame decoded by the most recent successful update to the read
+     *     of that frame completing; since the sample time is estimated as the middle of the bulk-read, this is half of that read's I2C
+     *     duration, and leaves out however long the SRSHub's firmware held the values before the read began, which it does not report, so
+     *     the true latency is at least this long
+     */
+    public long frameLatency() {
+        return frameTimestamp - frameSampleTimestamp;
+    }
 
-                device.parseUpdate(
-                    data,
-                    index
-                );
-                index += device.getUpdateLength();
-            }
-        }
+    /**
+     * @return whether the frame decoded by the most recent successful update is known to have left every value as it was, so that work
+     *     derived from those values need not be redone; the SRSHub does not number its samples, so a repeated sample cannot be told apart
+     *     from a new one that happens to read the same
+     */
+    public boolean frameUnchanged() {
+        return frameUnchanged;
     }
 
     /**
@@ -1442,7 +4611,8 @@ public class SRSHub extends I2cDeviceSynchDevice<I2cDeviceSynchSimple> {
     }
 
     /**
-     * gets the current position and velocity of the encoder at the specified port
+     * gets the current position and velocity of the encoder at the specified port; the returned object is a copy that later updates do not
+     * change, and allocating it can be avoided with {@link #readEncoder(int, PosVel)} or the primitive accessors
      *
      * @param port the port being read, from 1 to 6
      *
@@ -1454,6 +4624,64 @@ public class SRSHub extends I2cDeviceSynchDevice<I2cDeviceSynchSimple> {
      * @throws IllegalStateException if the port was not configured
      */
     public PosVel readEncoder(int port) {
+        return readEncoder(
+            port,
+            new PosVel()
+        );
+    }
+
+    /**
+     * copies the current position and velocity of the encoder at the specified port into a caller-owned object
+     *
+     * @param port the port being read, from 1 to 6
+     * @param posVel the object receiving the position and velocity
+     *
+     * @return posVel
+     *
+     * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
+     * @throws IllegalStateException if the SRSHub has not yet been initialized
+     * @throws IllegalStateException if the port was not configured
+     */
+    public PosVel readEncoder(int port, PosVel posVel) {
+        checkEncoder(port);
+
+        posVel.position = (int) encoderPositions[port - 1];
+        posVel.velocity = encoderVelocities[port - 1];
+
+        return posVel;
+    }
+
+    /**
+     * @param port the port being read, from 1 to 6
+     *
+     * @return the current position of the encoder; in ticks for quadrature encoders and pulse width in microseconds for PWM encoders
+     *
+     * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
+     * @throws IllegalStateException if the SRSHub has not yet been initialized
+     * @throws IllegalStateException if the port was not configured
+     */
+    public long readEncoderPosition(int port) {
+        checkEncoder(port);
+
+        return encoderPositions[port - 1];
+    }
+
+    /**
+     * @param port the port being read, from 1 to 6
+     *
+     * @return the current velocity of the encoder; in ticks per second for quadrature encoders and microseconds per second for PWM encoders
+     *
+     * @throws IndexOutOfBoundsException if the port is not between 1 and 6, inclusive
+     * @throws IllegalStateException if the SRSHub has not yet been initialized
+     * @throws IllegalStateException if the port was not configured
+     */
+    public int readEncoderVelocity(int port) {
+        checkEncoder(port);
+
+        return encoderVelocities[port - 1];
+    }
+
+    private void checkEncoder(int port) {
         if (port < 1 || port > 6) {
             throwException(
                 IndexOutOfBoundsException.class,
@@ -1477,8 +4705,6 @@ public class SRSHub extends I2cDeviceSynchDevice<I2cDeviceSynchSimple> {
                     " was not configured"
             );
         }
-
-        return encoderValues[port - 1];
     }
 
     /**
@@ -1536,19 +4762,65 @@ public class SRSHub extends I2cDeviceSynchDevice<I2cDeviceSynchSimple> {
             );
         }
 
-        byte[] data = new byte[(command.getLength() + 7) / 8];
+        writeCommand(command.toBytes());
+    }
+
+    /**
+     * queues a command on an I2C device to be sent right after the next bulk-read, by update or, while polling, by the polling thread; the
+     * command's payload is copied now, so a reusable command may be rewritten and queued again as soon as this returns; a queued command that
+     * this one replaces is dropped, so that, for example, pose corrections arriving faster than the SRSHub is read cost
+     * one write per read rather than one each; commands are held while the SRSHub is disconnected and discarded by init
+     *
+     * @throws IllegalStateException if the SRSHub has not yet been initialized
+     *
+     * @see Command#replaces(Command, byte[])
+     */
+    public void queueCommand(Command command) {
+        if (config == null) {
+            throwException(
+                IllegalStateException.class,
+                "The SRSHub must be initialized before queueing commands"
+            );
+        }
+
+        synchronized (commandLock) {
+            for (int i = 0; i < queuedCommands.size(); i++) {
+                if (command.replaces(
+                    queuedCommands.get(i),
+                    queuedCommands.getPayload(i)
+                )) {
+                    queuedCommands.remove(i--);
+                }
+            }
 
-        System.arraycopy(
-            command.getData().toByteArray(),
-            0,
-            data,
-            0,
-            command.getData().toByteArray().length
-        );
+            // copied here, under the lock, rather than read when sent, which may be on the polling thread
+            queuedCommands.add(command);
+        }
+    }
+
+    private void sendQueuedCommands() {
+        synchronized (commandLock) {
+            if (queuedCommands.isEmpty()) {
+                return;
+            }
 
+            CommandQueue swap = sendingCommands;
+
+            sendingCommands = queuedCommands;
+            queuedCommands = swap;
+        }
+
+        for (int i = 0; i < sendingCommands.size(); i++) {
+            writeCommand(sendingCommands.getPayload(i));
+        }
+
+        sendingCommands.clear();
+    }
+
+    private void writeCommand(byte[] payload) {
         deviceClient.write(
             Register.COMMAND.address,
-            data
+            payload
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,779 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.qualcomm.robotcore.hardware.I2cAddr;
+import com.qualcomm.robotcore.hardware.I2cDeviceSynchSimple;
+import com.qualcomm.robotcore.hardware.I2cWaitControl;
+import com.qualcomm.robotcore.hardware.TimestampedData;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * an in-memory stand-in for the SRSHub firmware that speaks its register protocol, so that the driver can be exercised and load-tested
+ * without a robot:
+ *
+ * <pre>
+ * SRSHubSimulator simulator = new SRSHubSimulator();
+ * SRSHub hub = new SRSHub(simulator, true);
+ *
+ * simulator.setLatency(1500, 22, 300);
+ * simulator.setCorruptionProbability(0.01);
+ *
+ * hub.init(config);
+ * </pre>
+ *
+ * the INIT bitstream is parsed the way the firmware parses it, and READ frames are packed from that parsed layout rather than from the
+ * driver's decode plan, so a mismatch between the two shows up as wrong values
+ */
+public class SRSHubSimulator implements I2cDeviceSynchSimple {
+    private static final int ANALOG_DIGITAL_PINS = 12;
+    private static final int ENCODER_PORTS = 6;
+    private static final int I2C_BUSES = 3;
+
+    private final Random random = new Random();
+
+    private volatile long transactionMicros = 0;
+    private volatile long microsPerByte = 0;
+    private volatile long jitterMicros = 0;
+
+    private volatile long bootMillis = 0;
+
+    private volatile double corruptionProbability = 0;
+    private int corruptedReads = 0;
+    private volatile boolean connected = true;
+
+    private boolean configured = false;
+    private long bootedAt = 0;
+
+    private final int[] analogDigitalDevices = new int[ANALOG_DIGITAL_PINS];
+    private final int[] encoders = new int[ENCODER_PORTS];
+
+    private final int[][] i2cDevices = new int[I2C_BUSES][];
+    private final int[][] i2cUpdateLengths = new int[I2C_BUSES][];
+    private final byte[][][] i2cPayloads = new byte[I2C_BUSES][][];
+
+    private final int[] analogDigitalValues = new int[ANALOG_DIGITAL_PINS];
+
+    private final int[] encoderPositions = new int[ENCODER_PORTS];
+    private final int[] reportedEncoderPositions = new int[ENCODER_PORTS];
+    private final int[] encoderVelocities = new int[ENCODER_PORTS];
+
+    private long reads = 0;
+    private long writes = 0;
+    private long commands = 0;
+    private long restarts = 0;
+
+    private byte[] lastCommand = new byte[0];
+
+    // the register that register-less reads address: the last one read or written, as a register pointer does on the wire
+    private int register = SRSHub.Register.DEVICE_INFO.address;
+
+    private I2cAddr i2cAddress = I2cAddr.create7bit(0x57);
+    private HealthStatus healthStatus = HealthStatus.UNKNOWN;
+    private String userConfiguredName = "SRSHub Simulator";
+
+    private boolean writeCoalescing = false;
+    private boolean logging = false;
+    private String loggingTag = "SRSHubSimulator";
+
+    public SRSHubSimulator() {
+        clearConfiguration();
+    }
+
+    /**
+     * sets the simulated duration of each I2C transaction, which is spent before the transaction takes effect
+     *
+     * @param transactionMicros the fixed cost of a transaction in microseconds
+     * @param microsPerByte the additional cost of each byte transferred in microseconds; about 23 at 400 kHz
+     * @param jitterMicros the maximum random deviation, in either direction, added to each transaction in microseconds
+     */
+    public void setLatency(long transactionMicros, long microsPerByte, long jitterMicros) {
+        this.transactionMicros = transactionMicros;
+        this.microsPerByte = microsPerByte;
+        this.jitterMicros = jitterMicros;
+    }
+
+    /**
+     * @param bootMillis how long after a RESTART the simulator answers every read with zeros, as the firmware does while rebooting
+     */
+    public void setBootTime(long bootMillis) {
+        this.bootMillis = bootMillis;
+    }
+
+    /**
+     * @param probability the chance, from 0 to 1, that a READ frame has one bit flipped after its CRC was computed
+     */
+    public void setCorruptionProbability(double probability) {
+        corruptionProbability = probability;
+    }
+
+    /**
+     * @param reads the number of upcoming READ frames to corrupt, as setCorruptionProbability does, regardless of the probability
+     */
+    public synchronized void corruptNextReads(int reads) {
+        corruptedReads = reads;
+    }
+
+    /**
+     * @param connected whether the simulator answers; while disconnected every read returns zeros and writes are dropped
+     */
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    /**
+     * simulates a brown-out: the configuration is lost, so READ returns zeros until the driver sends INIT again
+     */
+    public synchronized void reset() {
+        restarts++;
+
+        clearConfiguration();
+
+        register = SRSHub.Register.DEVICE_INFO.address;
+
+        bootedAt = System.nanoTime() + bootMillis * 1000000;
+    }
+
+    /**
+     * @param pin the pin, from 1 to 12
+     * @param value the value reported for the pin; from 0 to 1 for analog devices and 0 or 1 for digital devices
+     */
+    public synchronized void setAnalogDigitalValue(int pin, double value) {
+        analogDigitalValues[pin - 1] = (int) Math.round(Math.max(0, Math.min(1, value)) * 4095);
+    }
+
+    /**
+     * @param port the port, from 1 to 6
+     * @param position the absolute position of a quadrature encoder, which is reported as a 16-bit delta from the previous READ, or the pulse
+     *     width of a PWM encoder
+     * @param velocity the velocity reported for the port
+     */
+    public synchronized void setEncoder(int port, int position, int velocity) {
+        encoderPositions[port - 1] = position;
+        encoderVelocities[port - 1] = velocity;
+    }
+
+    /**
+     * sets the raw update bits reported for an I2C device, packed least significant bit first starting with the device's disconnected flag
+     *
+     * @param bus the bus, from 1 to 3
+     * @param device the position of the device on the bus, from 1, in the order it was added to the configuration
+     * @param payload the update bits; bits past the device's update length are ignored
+     *
+     * @throws IllegalStateException if no such device has been configured
+     */
+    public synchronized void setI2CDevicePayload(int bus, int device, byte[] payload) {
+        if (device < 1 || device > i2cDevices[bus - 1].length) {
+            throw new IllegalStateException(
+                "No I2C device #" + device + " has been " +
+                    "configured on bus #" + bus
+            );
+        }
+
+        byte[] target = i2cPayloads[bus - 1][device - 1];
+
+        Arrays.fill(
+            target,
+            (byte) 0
+        );
+
+        System.arraycopy(
+            payload,
+            0,
+            target,
+            0,
+            Math.min(
+                payload.length,
+                target.length
+            )
+        );
+    }
+
+    /**
+     * @return whether the simulator currently holds a configuration sent by INIT
+     */
+    public synchronized boolean configured() {
+        return configured;
+    }
+
+    /**
+     * @return the number of reads answered since construction
+     */
+    public synchronized long getReadCount() {
+        return reads;
+    }
+
+    /**
+     * @return the number of writes received since construction
+     */
+    public synchronized long getWriteCount() {
+        return writes;
+    }
+
+    /**
+     * @return the number of RESTART writes and simulated brown-outs since construction
+     */
+    public synchronized long getRestartCount() {
+        return restarts;
+    }
+
+    /**
+     * @return the number of COMMAND writes received since construction
+     */
+    public synchronized long getCommandCount() {
+        return commands;
+    }
+
+    /**
+     * @return a copy of the payload of the most recent COMMAND write
+     */
+    public synchronized byte[] getLastCommand() {
+        return lastCommand.clone();
+    }
+
+    public byte[] read(int ireg, int creg) {
+        delay(creg);
+
+        synchronized (this) {
+            reads++;
+
+            byte[] data = new byte[creg];
+
+            if (!connected || System.nanoTime() < bootedAt) {
+                return data;
+            }
+
+            register = ireg;
+
+            if (ireg == SRSHub.Register.DEVICE_INFO.address) {
+                byte[] deviceInfo = new byte[]{
+                    SRSHub.DEVICE_ID,
+                    SRSHub.DEVICE_MAJOR_VERSION,
+                    SRSHub.DEVICE_MINOR_VERSION,
+                    SRSHub.DEVICE_PATCH_VERSION
+                };
+
+                System.arraycopy(
+                    deviceInfo,
+                    0,
+                    data,
+                    0,
+                    Math.min(
+                        deviceInfo.length,
+                        creg
+                    )
+                );
+            }
+            else if (ireg == SRSHub.Register.READ.address && configured) {
+                byte[] frame = buildFrame();
+
+                System.arraycopy(
+                    frame,
+                    0,
+                    data,
+                    0,
+                    Math.min(
+                        frame.length,
+                        creg
+                    )
+                );
+            }
+
+            return data;
+        }
+    }
+
+    public void write(int ireg, byte[] data) {
+        delay(data.length);
+
+        synchronized (this) {
+            writes++;
+
+            if (!connected || System.nanoTime() < bootedAt) {
+                return;
+            }
+
+            register = ireg;
+
+            if (ireg == SRSHub.Register.RESTART.address) {
+                reset();
+            }
+            else if (ireg == SRSHub.Register.INIT.address && !configured) {
+                // the firmware only takes a configuration after a restart, so an INIT to a configured SRSHub is ignored
+                parseInit(data);
+            }
+            else if (ireg == SRSHub.Register.COMMAND.address) {
+                commands++;
+
+                lastCommand = data.clone();
+            }
+        }
+    }
+
+    private void delay(int bytes) {
+        long micros = transactionMicros + microsPerByte * bytes;
+
+        if (jitterMicros > 0) {
+            micros += (long) ((random.nextDouble() * 2 - 1) * jitterMicros);
+        }
+
+        if (micros > 0) {
+            LockSupport.parkNanos(micros * 1000);
+        }
+    }
+
+    private void clearConfiguration() {
+        configured = false;
+
+        Arrays.fill(
+            analogDigitalDevices,
+            SRSHub.AnalogDigitalDevice.NONE.value
+        );
+
+        Arrays.fill(
+            encoders,
+            SRSHub.Encoder.NONE.value
+        );
+
+        for (int i = 0; i < I2C_BUSES; i++) {
+            i2cDevices[i] = new int[0];
+            i2cUpdateLengths[i] = new int[0];
+            i2cPayloads[i] = new byte[0][];
+        }
+    }
+
+    private void parseInit(byte[] data) {
+        clearConfiguration();
+
+        SRSHub.BitReader init = new SRSHub.BitReader(data.length);
+
+        init.load(
+            data,
+            data.length
+        );
+
+        int index = 0;
+
+        for (int i = 0; i < ANALOG_DIGITAL_PINS; i++) {
+            analogDigitalDevices[i] = (int) init.readBits(
+                index,
+                2
+            );
+
+            index += 2;
+        }
+
+        for (int i = 0; i < ENCODER_PORTS; i++) {
+            encoders[i] = (int) init.readBits(
+                index,
+                2
+            );
+
+            index += 2;
+
+            reportedEncoderPositions[i] = encoderPositions[i];
+        }
+
+        for (int i = 0; i < I2C_BUSES; i++) {
+            int busLength = (int) init.readBits(
+                index,
+                16
+            );
+
+            index += 16;
+
+            int end = index + busLength;
+
+            int[] devices = new int[busLength / 4];
+            int[] updateLengths = new int[busLength / 4];
+
+            int count = 0;
+
+            while (index < end) {
+                int device = (int) init.readBits(
+                    index,
+                    4
+                );
+
+                index += 4;
+
+                switch (device) {
+                    case 0:
+                        updateLengths[count] = 76;
+
+                        break;
+                    case 1:
+                        updateLengths[count] = init.readBit(index) ? 705 : 177;
+                        index += 1;
+
+                        break;
+                    case 2:
+                        updateLengths[count] = 17;
+
+                        break;
+                    case 3:
+                        updateLengths[count] = 201;
+                        index += 98;
+
+                        break;
+                    default:
+                        throw new IllegalStateException(
+                            "Unknown I2C device type " + device +
+                                " in INIT for bus #" + (i + 1)
+                        );
+                }
+
+                devices[count++] = device;
+            }
+
+            i2cDevices[i] = Arrays.copyOf(
+                devices,
+                count
+            );
+
+            i2cUpdateLengths[i] = Arrays.copyOf(
+                updateLengths,
+                count
+            );
+
+            i2cPayloads[i] = new byte[count][];
+
+            for (int j = 0; j < count; j++) {
+                i2cPayloads[i][j] = new byte[(updateLengths[j] + 7) / 8];
+            }
+        }
+
+        configured = true;
+    }
+
+    private int frameBits() {
+        int bits = 8;
+
+        for (int device : analogDigitalDevices) {
+            if (device == SRSHub.AnalogDigitalDevice.ANALOG.value) {
+                bits += 12;
+            }
+            else if (device == SRSHub.AnalogDigitalDevice.DIGITAL.value) {
+                bits += 1;
+            }
+        }
+
+        for (int encoder : encoders) {
+            if (encoder != SRSHub.Encoder.NONE.value) {
+                bits += 48;
+            }
+        }
+
+        for (int[] updateLengths : i2cUpdateLengths) {
+            for (int updateLength : updateLengths) {
+                bits += updateLength;
+            }
+        }
+
+        return bits;
+    }
+
+    private byte[] buildFrame() {
+        byte[] frame = new byte[2 + (frameBits() + 7) / 8];
+
+        frame[0] = SRSHub.DEVICE_ID;
+
+        int index = 8;
+
+        for (int i = 0; i < ANALOG_DIGITAL_PINS; i++) {
+            if (analogDigitalDevices[i] == SRSHub.AnalogDigitalDevice.ANALOG.value) {
+                writeBits(
+                    frame,
+                    index,
+                    12,
+                    analogDigitalValues[i]
+                );
+
+                index += 12;
+            }
+            else if (analogDigitalDevices[i] == SRSHub.AnalogDigitalDevice.DIGITAL.value) {
+                writeBits(
+                    frame,
+                    index,
+                    1,
+                    analogDigitalValues[i] >= 2048 ? 1 : 0
+                );
+
+                index += 1;
+            }
+        }
+
+        for (int i = 0; i < ENCODER_PORTS; i++) {
+            if (encoders[i] == SRSHub.Encoder.NONE.value) {
+                continue;
+            }
+
+            int position = encoderPositions[i];
+
+            if (encoders[i] == SRSHub.Encoder.QUADRATURE.value) {
+                // like the firmware, only the low 16 bits of the delta are sent; anything beyond that is lost
+                position = (short) (encoderPositions[i] - reportedEncoderPositions[i]);
+
+                reportedEncoderPositions[i] = encoderPositions[i];
+            }
+
+            writeBits(
+                frame,
+                index,
+                16,
+                position
+            );
+
+            index += 16;
+
+            writeBits(
+                frame,
+                index,
+                32,
+                encoderVelocities[i]
+            );
+
+            index += 32;
+        }
+
+        for (int i = 0; i < I2C_BUSES; i++) {
+            for (int j = 0; j < i2cDevices[i].length; j++) {
+                byte[] payload = i2cPayloads[i][j];
+
+                for (int k = 0; k < i2cUpdateLengths[i][j]; k++) {
+                    writeBits(
+                        frame,
+                        index++,
+                        1,
+                        payload[k >>> 3] >> (k & 7) & 1
+                    );
+                }
+            }
+        }
+
+        int crc = SRSHub.computeCRC16(
+            frame,
+            0,
+            frame.length - 2
+        );
+
+        frame[frame.length - 2] = (byte) (crc >> 8);
+        frame[frame.length - 1] = (byte) crc;
+
+        boolean corrupt = corruptedReads > 0 || random.nextDouble() < corruptionProbability;
+
+        if (corruptedReads > 0) {
+            corruptedReads--;
+        }
+
+        if (corrupt) {
+            int bit = 8 + random.nextInt((frame.length - 3) * 8);
+
+            frame[bit >>> 3] ^= (byte) (1 << (bit & 7));
+        }
+
+        return frame;
+    }
+
+    private static void writeBits(byte[] frame, int offset, int width, long value) {
+        for (int i = 0; i < width; i++) {
+            int bit = offset + i;
+
+            if ((value >> i & 1) == 1) {
+                frame[bit >>> 3] |= (byte) (1 << (bit & 7));
+            }
+        }
+    }
+
+    public byte read8(int ireg) {
+        return read(
+            ireg,
+            1
+        )[0];
+    }
+
+    public TimestampedData readTimeStamped(int ireg, int creg) {
+        TimestampedData result = new TimestampedData();
+
+        result.data = read(
+            ireg,
+            creg
+        );
+
+        result.nanoTime = System.nanoTime();
+
+        return result;
+    }
+
+    public void write8(int ireg, int bVal) {
+        write(
+            ireg,
+            new byte[]{(byte) bVal}
+        );
+    }
+
+    public void write8(int ireg, int bVal, I2cWaitControl waitControl) {
+        write8(
+            ireg,
+            bVal
+        );
+    }
+
+    public void write(int ireg, byte[] data, I2cWaitControl waitControl) {
+        write(
+            ireg,
+            data
+        );
+    }
+
+    // a register-less read continues from the register last addressed, and a register-less write carries the register address in its first
+    // byte, as both do on the wire
+
+    public byte read8() {
+        return read(1)[0];
+    }
+
+    public byte[] read(int creg) {
+        return read(
+            currentRegister(),
+            creg
+        );
+    }
+
+    public TimestampedData readTimeStamped(int creg) {
+        return readTimeStamped(
+            currentRegister(),
+            creg
+        );
+    }
+
+    public void write8(int bVal) {
+        write(new byte[]{(byte) bVal});
+    }
+
+    public void write(byte[] data) {
+        if (data.length > 1) {
+            write(
+                data[0] & 0xFF,
+                Arrays.copyOfRange(
+                    data,
+                    1,
+                    data.length
+                )
+            );
+
+            return;
+        }
+
+        // the address alone only moves the register pointer
+        delay(data.length);
+
+        synchronized (this) {
+            writes++;
+
+            if (data.length == 1 && connected && System.nanoTime() >= bootedAt) {
+                register = data[0] & 0xFF;
+            }
+        }
+    }
+
+    public void write8(int bVal, I2cWaitControl waitControl) {
+        write8(bVal);
+    }
+
+    public void write(byte[] data, I2cWaitControl waitControl) {
+        write(data);
+    }
+
+    private synchronized int currentRegister() {
+        return register;
+    }
+
+    public void waitForWriteCompletions(I2cWaitControl waitControl) {
+    }
+
+    public void enableWriteCoalescing(boolean enable) {
+        writeCoalescing = enable;
+    }
+
+    public boolean isWriteCoalescingEnabled() {
+        return writeCoalescing;
+    }
+
+    public boolean isArmed() {
+        return connected;
+    }
+
+    @Deprecated
+    public void setI2cAddr(I2cAddr i2cAddr) {
+        setI2cAddress(i2cAddr);
+    }
+
+    @Deprecated
+    public I2cAddr getI2cAddr() {
+        return getI2cAddress();
+    }
+
+    public void setI2cAddress(I2cAddr newAddress) {
+        i2cAddress = newAddress;
+    }
+
+    public I2cAddr getI2cAddress() {
+        return i2cAddress;
+    }
+
+    public void setLogging(boolean enabled) {
+        logging = enabled;
+    }
+
+    public boolean getLogging() {
+        return logging;
+    }
+
+    public void setLoggingTag(String loggingTag) {
+        this.loggingTag = loggingTag;
+    }
+
+    public String getLoggingTag() {
+        return loggingTag;
+    }
+
+    public void setHealthStatus(HealthStatus status) {
+        healthStatus = status;
+    }
+
+    public HealthStatus getHealthStatus() {
+        return healthStatus;
+    }
+
+    public void setUserConfiguredName(String name) {
+        userConfiguredName = name;
+    }
+
+    public String getUserConfiguredName() {
+        return userConfiguredName;
+    }
+
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    public String getDeviceName() {
+        return "SRSHub Simulator";
+    }
+
+    public String getConnectionInfo() {
+        return "simulated";
+    }
+
+    public int getVersion() {
+        return 1;
+    }
+
+    public void resetDeviceConfigurationForOpMode() {
+    }
+
+    public void close() {
+    }
+}